@@ -0,0 +1,603 @@
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Realization of list of records, which stores every field of the record in its own primitive array (struct of arrays)
+ * Fields are described by {@link Schema}, and can be int, long or double
+ *
+ * Row-wise access rebuilds a record from the columns, while column-wise operations
+ * (sums, filters, sorting) read only the arrays of the columns they need,
+ * so a scan over one field does not load the other fields or the record objects
+ *
+ * Like {@link MyArrayList}, the arrays are initialized with capacity (256 by default) and grow by a factor of 1.5
+ *
+ * @param <R> type of records stored in the list
+ */
+public class ColumnarList<R> implements Iterable<R>, RandomAccess {
+
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final int INT = 0;
+    private static final int LONG = 1;
+    private static final int DOUBLE = 2;
+
+    /**
+     * Description of the columns
+     */
+    private final Schema<R> schema;
+    /**
+     * One primitive array (int[], long[] or double[]) per column
+     */
+    private final Object[] columns;
+    /**
+     * Amount of rows currently stored
+     */
+    private int size;
+    /**
+     * Amount of allocated cells in every column
+     */
+    private int capacity;
+
+    /**
+     * <p>Constructor for ColumnarList
+     * Initializes every column with 256 empty cells
+     * </p>
+     * @param schema description of the columns
+     */
+    public ColumnarList(Schema<R> schema){
+        this(schema, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * <p>Parametrized constructor for ColumnarList
+     * Initializes every column with given amount of cells
+     * </p>
+     * @param schema description of the columns
+     * @param capacity amount of cells in every column
+     * @throws IllegalArgumentException
+     */
+    public ColumnarList(Schema<R> schema, int capacity){
+        if (capacity <= 0){
+            throw new IllegalArgumentException("Cannot initialize array with capacity <= 0!");
+        }
+        this.schema = schema;
+        this.capacity = capacity;
+        columns = new Object[schema.names.length];
+        for (int c = 0; c < columns.length; ++c){
+            columns[c] = newColumn(schema.kinds[c], capacity);
+        }
+    }
+
+    /**
+     * Parametrized constructor for ColumnarList
+     * Splits all records of passed collection into columns
+     * @param schema description of the columns
+     * @param c Collection
+     */
+    public ColumnarList(Schema<R> schema, Collection<? extends R> c){
+        this(schema, Math.max(c.size(), DEFAULT_CAPACITY));
+        for (R record : c){
+            add(record);
+        }
+    }
+
+    /**
+     * @return amount of rows in the list
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * @return true if the list has no rows, false otherwise
+     */
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * @return schema of this list
+     */
+    public Schema<R> schema(){
+        return schema;
+    }
+
+    /**
+     * Adds a record to the end of the list, splitting its fields into columns
+     * @param record record to add
+     * @return true
+     */
+    public boolean add(R record){
+        if (size == capacity){
+            resize(capacity + capacity/2 + 1);
+        }
+        write(size++, record);
+        return true;
+    }
+
+    /**
+     * Rebuilds the record at given index from the columns
+     * @param index index of the row
+     * @return new record built by the factory of the schema
+     * @throws IndexOutOfBoundsException
+     */
+    public R get(int index){
+        return schema.factory.apply(row(index));
+    }
+
+    /**
+     * Returns a view of the row at given index, reading the columns directly without building a record
+     * @param index index of the row
+     * @return view of the row
+     * @throws IndexOutOfBoundsException
+     */
+    public Row row(int index){
+        checkIndex(index);
+        Row row = new Row();
+        row.index = index;
+        return row;
+    }
+
+    /**
+     * Replaces all fields of the row at given index with the fields of a record
+     * @param index index of the row
+     * @param record record to store
+     * @throws IndexOutOfBoundsException
+     */
+    public void set(int index, R record){
+        checkIndex(index);
+        write(index, record);
+    }
+
+    /**
+     * Removes all rows
+     * Capacity of the columns is unchanged after this operation
+     */
+    public void clear(){
+        size = 0;
+    }
+
+    /**
+     * Iterator rebuilds a new record for every row
+     * @return iterator over records of the list
+     */
+    @Override
+    public Iterator<R> iterator() {
+        return new Iterator<R>() {
+            private int currentIndex = 0;
+
+            @Override
+            public boolean hasNext() {
+                return currentIndex < size;
+            }
+
+            @Override
+            public R next() {
+                if (!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                return get(currentIndex++);
+            }
+        };
+    }
+
+    /**
+     * Visits every row with a single reused view, so no records or views are created during the scan
+     * The view must not be kept after the action returns
+     * @param action action to perform on each row
+     */
+    public void forEachRow(Consumer<? super Row> action){
+        Row row = new Row();
+        for (int i = 0; i < size; ++i){
+            row.index = i;
+            action.accept(row);
+        }
+    }
+
+    /**
+     * Sums all values of an int or long column
+     * @param column name of the column
+     * @return sum of the values
+     * @throws IllegalArgumentException if there is no such column, or it is not an int or long column
+     */
+    public long sumLong(String column){
+        int c = schema.indexOf(column);
+        long sum = 0;
+        if (schema.kinds[c] == INT){
+            int[] values = (int[]) columns[c];
+            for (int i = 0; i < size; ++i){
+                sum += values[i];
+            }
+        } else {
+            long[] values = longColumn(c);
+            for (int i = 0; i < size; ++i){
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Sums all values of a double column
+     * @param column name of the column
+     * @return sum of the values
+     * @throws IllegalArgumentException if there is no such column, or it is not a double column
+     */
+    public double sumDouble(String column){
+        double[] values = doubleColumn(schema.indexOf(column));
+        double sum = 0;
+        for (int i = 0; i < size; ++i){
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Finds all rows whose value in an int or long column matches the predicate
+     * @param column name of the column
+     * @param predicate predicate to test the values with
+     * @return indices of matching rows in ascending order
+     * @throws IllegalArgumentException if there is no such column, or it is not an int or long column
+     */
+    public int[] filterLong(String column, LongPredicate predicate){
+        int c = schema.indexOf(column);
+        int[] found = new int[16];
+        int count = 0;
+        if (schema.kinds[c] == INT){
+            int[] values = (int[]) columns[c];
+            for (int i = 0; i < size; ++i){
+                if (predicate.test(values[i])){
+                    found = append(found, count++, i);
+                }
+            }
+        } else {
+            long[] values = longColumn(c);
+            for (int i = 0; i < size; ++i){
+                if (predicate.test(values[i])){
+                    found = append(found, count++, i);
+                }
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Finds all rows whose value in a double column matches the predicate
+     * @param column name of the column
+     * @param predicate predicate to test the values with
+     * @return indices of matching rows in ascending order
+     * @throws IllegalArgumentException if there is no such column, or it is not a double column
+     */
+    public int[] filterDouble(String column, DoublePredicate predicate){
+        double[] values = doubleColumn(schema.indexOf(column));
+        int[] found = new int[16];
+        int count = 0;
+        for (int i = 0; i < size; ++i){
+            if (predicate.test(values[i])){
+                found = append(found, count++, i);
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Returns the order of rows sorted by one column in ascending order, without moving any rows
+     * Only the array of the given column is read
+     * @param column name of the column
+     * @return indices of rows, such that the values of the column at these indices are in ascending order
+     * @throws IllegalArgumentException if there is no such column
+     */
+    public int[] sortedIndices(String column){
+        int c = schema.indexOf(column);
+        int[] order = new int[size];
+        for (int i = 0; i < size; ++i){
+            order[i] = i;
+        }
+        if (size > 1){
+            quicksort(order, 0, size - 1, comparatorOf(c));
+        }
+        return order;
+    }
+
+    /**
+     * Sorts the rows by one column in ascending order
+     * The order is computed from the given column only, after which every column is rearranged once
+     * @param column name of the column
+     * @throws IllegalArgumentException if there is no such column
+     */
+    public void sortBy(String column){
+        int[] order = sortedIndices(column);
+        for (int c = 0; c < columns.length; ++c){
+            Object sorted = newColumn(schema.kinds[c], capacity);
+            switch (schema.kinds[c]){
+                case INT: {
+                    int[] from = (int[]) columns[c], to = (int[]) sorted;
+                    for (int i = 0; i < size; ++i){
+                        to[i] = from[order[i]];
+                    }
+                    break;
+                }
+                case LONG: {
+                    long[] from = (long[]) columns[c], to = (long[]) sorted;
+                    for (int i = 0; i < size; ++i){
+                        to[i] = from[order[i]];
+                    }
+                    break;
+                }
+                default: {
+                    double[] from = (double[]) columns[c], to = (double[]) sorted;
+                    for (int i = 0; i < size; ++i){
+                        to[i] = from[order[i]];
+                    }
+                }
+            }
+            columns[c] = sorted;
+        }
+    }
+
+    /**
+     * Creates a string consisting of all records of the list, prefixed by '[', and suffixed by ']'
+     * @return a string consisting of all records
+     */
+    public String toString(){
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (R record : this){
+            joiner.add(String.valueOf(record));
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Writes all fields of a record into the row at given index
+     */
+    private void write(int index, R record){
+        for (int c = 0; c < columns.length; ++c){
+            switch (schema.kinds[c]){
+                case INT:
+                    ((int[]) columns[c])[index] = ((ToIntFunction<R>) schema.extractors[c]).applyAsInt(record);
+                    break;
+                case LONG:
+                    ((long[]) columns[c])[index] = ((ToLongFunction<R>) schema.extractors[c]).applyAsLong(record);
+                    break;
+                default:
+                    ((double[]) columns[c])[index] = ((ToDoubleFunction<R>) schema.extractors[c]).applyAsDouble(record);
+            }
+        }
+    }
+
+    /**
+     * Method to resize every column
+     * @param capacity new amount of cells in every column
+     */
+    private void resize(int capacity){
+        for (int c = 0; c < columns.length; ++c){
+            Object newColumn = newColumn(schema.kinds[c], capacity);
+            System.arraycopy(columns[c], 0, newColumn, 0, size);
+            columns[c] = newColumn;
+        }
+        this.capacity = capacity;
+    }
+
+    private void checkIndex(int index){
+        if (index >= size || index < 0){
+            throw new IndexOutOfBoundsException("Index of get out of bounds! Index: " + index);
+        }
+    }
+
+    private long[] longColumn(int c){
+        if (schema.kinds[c] != LONG){
+            throw new IllegalArgumentException("Column " + schema.names[c] + " is not a long column!");
+        }
+        return (long[]) columns[c];
+    }
+
+    private double[] doubleColumn(int c){
+        if (schema.kinds[c] != DOUBLE){
+            throw new IllegalArgumentException("Column " + schema.names[c] + " is not a double column!");
+        }
+        return (double[]) columns[c];
+    }
+
+    private IntBinaryOperator comparatorOf(int c){
+        switch (schema.kinds[c]){
+            case INT: {
+                int[] values = (int[]) columns[c];
+                return (a, b) -> Integer.compare(values[a], values[b]);
+            }
+            case LONG: {
+                long[] values = (long[]) columns[c];
+                return (a, b) -> Long.compare(values[a], values[b]);
+            }
+            default: {
+                double[] values = (double[]) columns[c];
+                return (a, b) -> Double.compare(values[a], values[b]);
+            }
+        }
+    }
+
+    private static Object newColumn(int kind, int capacity){
+        switch (kind){
+            case INT:
+                return new int[capacity];
+            case LONG:
+                return new long[capacity];
+            default:
+                return new double[capacity];
+        }
+    }
+
+    private static int[] append(int[] arr, int index, int value){
+        if (index == arr.length){
+            arr = Arrays.copyOf(arr, index + index/2 + 1);
+        }
+        arr[index] = value;
+        return arr;
+    }
+
+    /**
+     * Single pivot Hoare quicksort of row indices, compared by the values of one primitive column
+     *
+     * This is a separate copy rather than a call to the partitioning of {@link MyArrayList}:
+     * that one works on an array of objects with a {@link Comparator}, and sorting row indices through it
+     * would box every index and every compared value, which is what this class exists to avoid.
+     * Changes to the partitioning scheme of MyArrayList do not have to be mirrored here
+     */
+    private static void quicksort(int[] arr, int lb, int ub, IntBinaryOperator c){
+        int left = lb, right = ub;
+        int pivot = arr[(left + right) / 2];
+        do{
+            while (left < ub && c.applyAsInt(arr[left], pivot) < 0) {
+                ++left;
+            }
+            while (right > lb && c.applyAsInt(arr[right], pivot) > 0){
+                --right;
+            }
+            if (left <= right){
+                int tmp = arr[left];
+                arr[left] = arr[right];
+                arr[right] = tmp;
+                ++left; -- right;
+            }
+        } while (left <= right);
+        if (lb < right){
+            quicksort(arr, lb, right, c);
+        }
+        if (left < ub){
+            quicksort(arr, left, ub, c);
+        }
+    }
+
+    /**
+     * <p>View of a single row of the list</p>
+     * Values are read directly from the columns, either by column name or by column position in the schema
+     */
+    public class Row {
+        private int index;
+
+        private Row(){
+        }
+
+        /**
+         * @return index of the row in the list
+         */
+        public int index(){
+            return index;
+        }
+
+        public int getInt(String column){
+            return getInt(schema.indexOf(column));
+        }
+
+        public int getInt(int column){
+            if (schema.kinds[column] != INT){
+                throw new IllegalArgumentException("Column " + schema.names[column] + " is not an int column!");
+            }
+            return ((int[]) columns[column])[index];
+        }
+
+        public long getLong(String column){
+            return getLong(schema.indexOf(column));
+        }
+
+        public long getLong(int column){
+            return longColumn(column)[index];
+        }
+
+        public double getDouble(String column){
+            return getDouble(schema.indexOf(column));
+        }
+
+        public double getDouble(int column){
+            return doubleColumn(column)[index];
+        }
+    }
+
+    /**
+     * <p>Description of the columns of {@link ColumnarList}</p>
+     *
+     * Every column has a name, a primitive type and a function extracting its value from a record.
+     * The factory rebuilds a record from a {@link Row}
+     *
+     * @param <R> type of records
+     */
+    public static final class Schema<R> {
+        private final String[] names;
+        private final int[] kinds;
+        private final Object[] extractors;
+        private final Function<ColumnarList<R>.Row, R> factory;
+
+        private Schema(Builder<R> builder, Function<ColumnarList<R>.Row, R> factory){
+            this.names = builder.names.toArray(new String[0]);
+            this.kinds = builder.kinds.stream().mapToInt(Integer::intValue).toArray();
+            this.extractors = builder.extractors.toArray();
+            this.factory = factory;
+        }
+
+        /**
+         * @return new empty schema builder
+         */
+        public static <R> Builder<R> builder(){
+            return new Builder<>();
+        }
+
+        /**
+         * @param column name of the column
+         * @return position of the column in the schema
+         * @throws IllegalArgumentException if there is no such column
+         */
+        public int indexOf(String column){
+            for (int c = 0; c < names.length; ++c){
+                if (names[c].equals(column)){
+                    return c;
+                }
+            }
+            throw new IllegalArgumentException("No column with name " + column + "!");
+        }
+
+        /**
+         * Builder of {@link Schema}, columns are numbered in the order they are added
+         * @param <R> type of records
+         */
+        public static final class Builder<R> {
+            private final List<String> names = new ArrayList<>();
+            private final List<Integer> kinds = new ArrayList<>();
+            private final List<Object> extractors = new ArrayList<>();
+
+            private Builder(){
+            }
+
+            public Builder<R> intColumn(String name, ToIntFunction<? super R> extractor){
+                return column(name, INT, extractor);
+            }
+
+            public Builder<R> longColumn(String name, ToLongFunction<? super R> extractor){
+                return column(name, LONG, extractor);
+            }
+
+            public Builder<R> doubleColumn(String name, ToDoubleFunction<? super R> extractor){
+                return column(name, DOUBLE, extractor);
+            }
+
+            /**
+             * @param factory function to rebuild a record from a row
+             * @return new schema with all added columns
+             * @throws IllegalArgumentException if no columns were added
+             */
+            public Schema<R> build(Function<ColumnarList<R>.Row, R> factory){
+                if (names.isEmpty()){
+                    throw new IllegalArgumentException("Cannot create schema without columns!");
+                }
+                return new Schema<>(this, factory);
+            }
+
+            private Builder<R> column(String name, int kind, Object extractor){
+                if (names.contains(name)){
+                    throw new IllegalArgumentException("Column " + name + " is already defined!");
+                }
+                names.add(name);
+                kinds.add(kind);
+                extractors.add(extractor);
+                return this;
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+import java.util.*;
+
+/**
+ * Append-only list of long values, stored in compressed form
+ * Intended for large lists of ids, which are often sorted or clustered
+ *
+ * Values are split into blocks of 128. Every full block is stored using frame of reference and bit packing:
+ * the block remembers its minimal value, and every value is stored as its difference from the minimum
+ * using only as many bits as the largest difference needs.
+ * The last block, which is not full yet, is kept uncompressed, so appending never re-encodes earlier blocks
+ *
+ * Random access is O(1): the block of an index is known, and every value in a block has the same bit width
+ *
+ * Used in educational purposes
+ */
+public class CompressedLongList implements Iterable<Long>, RandomAccess {
+
+    private static final int BLOCK_SHIFT = 7;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+    private static final int DEFAULT_BLOCKS = 16;
+
+    /**
+     * Bit packed values of all full blocks
+     */
+    private long[] words = new long[DEFAULT_BLOCKS * 8];
+    /**
+     * Amount of used cells in words
+     */
+    private int wordCount;
+    /**
+     * Minimal value of each full block
+     */
+    private long[] bases = new long[DEFAULT_BLOCKS];
+    /**
+     * Index in words where each full block starts
+     */
+    private int[] offsets = new int[DEFAULT_BLOCKS];
+    /**
+     * Amount of bits used by every value of each full block
+     */
+    private byte[] widths = new byte[DEFAULT_BLOCKS];
+    /**
+     * Amount of full blocks
+     */
+    private int blocks;
+    /**
+     * Uncompressed values of the last block, which is not full yet
+     */
+    private final long[] tail = new long[BLOCK_SIZE];
+    /**
+     * Amount of values currently stored
+     */
+    private int size;
+
+    /**
+     * <p>Constructor for CompressedLongList
+     * Creates an empty list
+     * </p>
+     */
+    public CompressedLongList(){
+    }
+
+    /**
+     * Parametrized constructor for CompressedLongList
+     * Appends values of all numbers from passed collection
+     * @param c Collection
+     */
+    public CompressedLongList(Collection<? extends Number> c){
+        for (Number n : c){
+            add(n.longValue());
+        }
+    }
+
+    /**
+     * @return amount of values in the list
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * @return true if the list is empty, false otherwise
+     */
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * Adds value to the end of the list
+     * When the last block gets full, it is compressed, earlier blocks are never touched
+     * @param value value to add
+     * @return true
+     */
+    public boolean add(long value){
+        if (size == Integer.MAX_VALUE){
+            throw new IllegalStateException("Cannot add value, list is full!");
+        }
+        tail[size & BLOCK_MASK] = value;
+        ++size;
+        if ((size & BLOCK_MASK) == 0){
+            encodeTail();
+        }
+        return true;
+    }
+
+    /**
+     * Returns value at given index, decoding it from its block
+     * @param index index of the value to return
+     * @return value at the given index
+     * @throws IndexOutOfBoundsException
+     */
+    public long getLong(int index){
+        if (index >= size || index < 0){
+            throw new IndexOutOfBoundsException("Index of get out of bounds! Index: " + index);
+        }
+        int block = index >>> BLOCK_SHIFT;
+        if (block == blocks){
+            return tail[index & BLOCK_MASK];
+        }
+        return decode(block, index & BLOCK_MASK);
+    }
+
+    /**
+     * Iterator decodes a whole block at a time into a buffer, and then returns values from the buffer
+     * Values appended during iteration are returned as well: the list is append-only, so indices never shift,
+     * and a block compressed while the iterator is inside it is decoded on the next call
+     * @return iterator over all values of the list
+     */
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private final long[] buffer = new long[BLOCK_SIZE];
+            /**
+             * Index of the full block currently decoded in buffer, -1 if there is none
+             */
+            private int bufferedBlock = -1;
+            private int currentIndex = 0;
+
+            @Override
+            public boolean hasNext() {
+                return currentIndex < size;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                int inBlock = currentIndex & BLOCK_MASK;
+                int block = currentIndex >>> BLOCK_SHIFT;
+                ++currentIndex;
+                if (block == blocks){
+                    return tail[inBlock];
+                }
+                if (block != bufferedBlock){
+                    decodeBlock(block, buffer);
+                    bufferedBlock = block;
+                }
+                return buffer[inBlock];
+            }
+        };
+    }
+
+    /**
+     * @return array with all values of the list
+     */
+    public long[] toArray(){
+        long[] result = new long[size];
+        long[] buffer = new long[BLOCK_SIZE];
+        for (int b = 0; b < blocks; ++b){
+            decodeBlock(b, buffer);
+            System.arraycopy(buffer, 0, result, b << BLOCK_SHIFT, BLOCK_SIZE);
+        }
+        System.arraycopy(tail, 0, result, blocks << BLOCK_SHIFT, size & BLOCK_MASK);
+        return result;
+    }
+
+    /**
+     * Estimates the memory held by the arrays of this list, including block headers, the uncompressed last block
+     * and unused capacity of the growing arrays, which may be up to half of their used part.
+     * Compression ratio can be computed as {@code size() * 8.0 / sizeInBytes()}, after {@link #trimToSize()}
+     * for the ratio of the stored values alone
+     * @return amount of bytes held by the arrays of this list, without object headers
+     */
+    public long sizeInBytes(){
+        return 8L * words.length + 8L * bases.length + 4L * offsets.length + widths.length + 8L * tail.length;
+    }
+
+    /**
+     * Method to remove unused capacity of the arrays holding compressed blocks
+     * Appending afterwards is still allowed, the arrays grow again when needed
+     */
+    public void trimToSize(){
+        words = Arrays.copyOf(words, wordCount);
+        bases = Arrays.copyOf(bases, blocks);
+        offsets = Arrays.copyOf(offsets, blocks);
+        widths = Arrays.copyOf(widths, blocks);
+    }
+
+    /**
+     * Creates a string consisting of all values of the list, prefixed by '[', and suffixed by ']'
+     * @return a string consisting of all values
+     */
+    public String toString(){
+        return Arrays.toString(toArray());
+    }
+
+    /**
+     * Compresses the last block, which has just got full
+     */
+    private void encodeTail(){
+        long base = tail[0];
+        for (int i = 1; i < BLOCK_SIZE; ++i){
+            base = Math.min(base, tail[i]);
+        }
+        long bits = 0;
+        for (int i = 0; i < BLOCK_SIZE; ++i){
+            bits |= tail[i] - base;
+        }
+        int width = 64 - Long.numberOfLeadingZeros(bits);
+        int blockWords = BLOCK_SIZE * width / 64;
+
+        if (blocks == bases.length){
+            int newLength = blocks + blocks/2 + 1;
+            bases = Arrays.copyOf(bases, newLength);
+            offsets = Arrays.copyOf(offsets, newLength);
+            widths = Arrays.copyOf(widths, newLength);
+        }
+        if (wordCount + blockWords > words.length){
+            words = Arrays.copyOf(words, Math.max(words.length + words.length/2 + 1, wordCount + blockWords));
+        }
+
+        int offset = wordCount;
+        if (width > 0){
+            for (int i = 0; i < BLOCK_SIZE; ++i){
+                long bit = (long) i * width;
+                int word = offset + (int) (bit >>> 6);
+                int shift = (int) (bit & 63);
+                long value = tail[i] - base;
+                words[word] |= value << shift;
+                if (shift + width > 64){
+                    words[word + 1] |= value >>> (64 - shift);
+                }
+            }
+        }
+        bases[blocks] = base;
+        offsets[blocks] = offset;
+        widths[blocks] = (byte) width;
+        wordCount += blockWords;
+        ++blocks;
+    }
+
+    /**
+     * Decodes a single value of a full block
+     */
+    private long decode(int block, int inBlock){
+        int width = widths[block];
+        if (width == 0){
+            return bases[block];
+        }
+        long bit = (long) inBlock * width;
+        int word = offsets[block] + (int) (bit >>> 6);
+        int shift = (int) (bit & 63);
+        long value = words[word] >>> shift;
+        if (shift + width > 64){
+            value |= words[word + 1] << (64 - shift);
+        }
+        if (width < 64){
+            value &= (1L << width) - 1;
+        }
+        return bases[block] + value;
+    }
+
+    /**
+     * Decodes all values of a full block into buffer
+     */
+    private void decodeBlock(int block, long[] buffer){
+        for (int i = 0; i < BLOCK_SIZE; ++i){
+            buffer[i] = decode(block, i);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only sequence of elements, which many threads can append to at once without locking
+ * When all elements are collected, the log is sealed into a regular {@link MyArrayList}
+ *
+ * Elements are stored in segments, every next segment is twice as large as the previous one,
+ * so the log grows without ever copying elements that are already stored.
+ * A producer reserves an index with a single atomic increment, allocates the segment if it is the first one there,
+ * and writes the element into its slot
+ *
+ * Producers may finish out of order, so readers only see the published prefix:
+ * the longest run of written elements starting at index 0
+ *
+ * Null elements are not allowed, since an empty slot means the element is not written yet
+ *
+ * @param <E> type of elements
+ */
+public class ConcurrentAppendLog<E> {
+
+    private static final int DEFAULT_CAPACITY = 256;
+    /**
+     * Maximum amount of elements in the log
+     */
+    private static final int MAX_SIZE = 1 << 30;
+    /**
+     * Added to the reservation counter on seal, so that every later reservation is out of range
+     */
+    private static final long SEALED = 1L << 40;
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final VarHandle SEGMENTS = MethodHandles.arrayElementVarHandle(Object[][].class);
+
+    /**
+     * Segments of elements, segment k holds (first segment size << k) elements
+     */
+    private final Object[][] segments;
+    /**
+     * log2 of the size of the first segment
+     */
+    private final int firstShift;
+    /**
+     * Amount of reserved indices, plus SEALED after the log is sealed
+     */
+    private final AtomicLong reserved = new AtomicLong();
+    /**
+     * Length of the prefix known to be fully written
+     */
+    private final AtomicInteger published = new AtomicInteger();
+    private volatile boolean sealed;
+
+    /**
+     * <p>Constructor for ConcurrentAppendLog
+     * First segment holds 256 elements
+     * </p>
+     */
+    public ConcurrentAppendLog(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * <p>Parametrized constructor for ConcurrentAppendLog
+     * First segment holds at least capacity elements, rounded up to a power of two
+     * </p>
+     * If all elements fit in the first segment, {@link #seal()} does not copy them
+     * @param capacity expected amount of elements
+     * @throws IllegalArgumentException
+     */
+    public ConcurrentAppendLog(int capacity){
+        if (capacity <= 0 || capacity > MAX_SIZE){
+            throw new IllegalArgumentException("Cannot initialize log with capacity <= 0 or > 2^30!");
+        }
+        firstShift = 32 - Integer.numberOfLeadingZeros(capacity - 1);
+        segments = new Object[31 - firstShift][];
+        segments[0] = new Object[1 << firstShift];
+    }
+
+    /**
+     * Adds element to the end of the log
+     * Safe to call from any amount of threads at once
+     * @param e element to add
+     * @return index of the element
+     * @throws NullPointerException if the element is null
+     * @throws IllegalStateException if the log is sealed or full
+     */
+    public int append(E e){
+        Objects.requireNonNull(e, "Cannot append null!");
+        long index = reserved.getAndIncrement();
+        if (index >= MAX_SIZE){
+            throw new IllegalStateException(sealed ? "Log is sealed!" : "Log is full!");
+        }
+        int position = (int) index + (1 << firstShift);
+        int k = 31 - Integer.numberOfLeadingZeros(position) - firstShift;
+        SLOTS.setRelease(segment(k), position - (1 << (k + firstShift)), e);
+        return (int) index;
+    }
+
+    /**
+     * Returns the length of the published prefix: all elements before it are written and visible to this thread
+     * @return amount of elements which can be read
+     */
+    public int size(){
+        long r = reserved.get();
+        int limit = (int) Math.min(r >= SEALED ? r - SEALED : r, MAX_SIZE);
+        int p = published.get();
+        while (p < limit && slot(p) != null){
+            ++p;
+        }
+        return published.accumulateAndGet(p, Math::max);
+    }
+
+    /**
+     * Returns element at given index of the published prefix
+     * @param index index of the element to return
+     * @return element at the given index
+     * @throws IndexOutOfBoundsException if the index is outside of the published prefix
+     */
+    public E get(int index){
+        if (index < 0 || (index >= published.get() && index >= size())){
+            throw new IndexOutOfBoundsException("Index of get out of bounds! Index: " + index);
+        }
+        return (E) slot(index);
+    }
+
+    /**
+     * @return true if the log is sealed, false otherwise
+     */
+    public boolean isSealed(){
+        return sealed;
+    }
+
+    /**
+     * <p>Closes the log for appending and returns all its elements as a regular list</p>
+     *
+     * Appends that reserved an index before sealing are waited for, all later appends fail.
+     * If all elements fit in the first segment, the list takes over the segment without copying,
+     * otherwise segments are copied once into an array of exact size.
+     * The log should not be read after sealing, since the returned list may share its storage
+     *
+     * @return list of all elements in the order of their indices
+     * @throws IllegalStateException if the log is already sealed
+     */
+    public MyArrayList<E> seal(){
+        sealed = true;
+        long r = reserved.getAndAdd(SEALED);
+        if (r >= SEALED){
+            throw new IllegalStateException("Log is already sealed!");
+        }
+        int count = (int) Math.min(r, MAX_SIZE);
+        for (int i = published.get(); i < count; ++i){
+            while (slot(i) == null){
+                Thread.onSpinWait();
+            }
+        }
+        published.set(count);
+
+        int first = 1 << firstShift;
+        if (count <= first){
+            return new MyArrayList<>((E[]) segments[0], count);
+        }
+        E[] arr = (E[]) new Object[count];
+        int copied = 0;
+        for (int k = 0; copied < count; ++k){
+            int length = Math.min(first << k, count - copied);
+            System.arraycopy(segments[k], 0, arr, copied, length);
+            copied += length;
+        }
+        return new MyArrayList<>(arr, count);
+    }
+
+    /**
+     * Reads the slot of an index, null if the element is not written yet
+     */
+    private Object slot(int index){
+        int position = index + (1 << firstShift);
+        int k = 31 - Integer.numberOfLeadingZeros(position) - firstShift;
+        Object[] segment = (Object[]) SEGMENTS.getAcquire(segments, k);
+        if (segment == null){
+            return null;
+        }
+        return SLOTS.getAcquire(segment, position - (1 << (k + firstShift)));
+    }
+
+    /**
+     * Returns segment k, allocating it if no other thread did it first
+     */
+    private Object[] segment(int k){
+        Object[] segment = (Object[]) SEGMENTS.getAcquire(segments, k);
+        if (segment == null){
+            Object[] allocated = new Object[(1 << firstShift) << k];
+            segment = SEGMENTS.compareAndSet(segments, k, null, allocated)
+                    ? allocated
+                    : (Object[]) SEGMENTS.getAcquire(segments, k);
+        }
+        return segment;
+    }
+}
@@ -1,4 +1,14 @@
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 /**
@@ -25,7 +35,43 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
     /**
      * Amount of allocated cells in array
      */
-    private final int capacity;
+    private int capacity;
+    /**
+     * True while the list is handed out by {@link #borrow(int)} and not yet released
+     */
+    private boolean borrowed;
+    /**
+     * Leak record of borrowed list, only used with pool debug mode enabled
+     */
+    private MyArrayListPool.Leak leak;
+    /**
+     * Changes recorded since the oldest kept checkpoint, null if change tracking is disabled
+     */
+    private ArrayList<Change<E>> changes;
+    /**
+     * Checkpoint of the first recorded change
+     */
+    private long changesBase;
+    /**
+     * Amount of recorded changes which were already handed out or checkpointed, and must not be extended
+     */
+    private int sealedChanges;
+    /**
+     * Amount of modifications made to this list, used to invalidate cached hashes
+     */
+    private int modCount;
+    /**
+     * Cached result of {@link #hashCode()}, valid while hashModCount equals modCount
+     */
+    private int hash;
+    private int hashModCount;
+    private boolean hashCached;
+    /**
+     * Cached result of {@link #contentHash()}, valid while contentHashModCount equals modCount
+     */
+    private long contentHash;
+    private int contentHashModCount;
+    private boolean contentHashCached;
 
     /**
      * Method to ensure that any element(s) added will fit in array
@@ -33,7 +79,7 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
      */
     private void ensureCapacity(int newSize){
         if (newSize > capacity){
-            resize(Math.max(capacity + capacity/2 + 1, capacity + newSize));
+            resize(Math.max(capacity + capacity/2 + 1, newSize));
         }
     }
 
@@ -45,6 +91,7 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
         E[] newArr = (E[])new Object[capacity];
         System.arraycopy(array,0,newArr,0,size);
         array = newArr;
+        this.capacity = capacity;
     }
 
     /**
@@ -73,15 +120,26 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
         array = (E[])new Object[capacity];
     }
 
+    /**
+     * Constructor adopting an existing array without copying it, used by {@link ConcurrentAppendLog#seal()}
+     * @param array array holding elements in cells [0, size), all cells after size must be empty
+     * @param size amount of elements in the array
+     */
+    MyArrayList(E[] array, int size){
+        this.array = array;
+        this.size = size;
+        this.capacity = array.length;
+    }
+
     /**
      * Parametrized constructor for main.java.MyArrayList
      * Copies all elements from passed collection into array
      * @param c Collection
      */
-    //TODO: swap with arraycopy
     public MyArrayList(Collection<? extends E> c){
-        size = c.size();
+        size = 0;
         capacity = Math.max(c.size(), DEFAULT_CAPACITY);
+        array = (E[])new Object[capacity];
         this.addAll(c);
     }
     /**
@@ -123,28 +181,7 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
      */
     @Override
     public Iterator<E> iterator() {
-        return new Iterator<E>() {
-            private int currentIndex = 0;
-
-            /**
-             * Checks if there is a next element that is not null
-             * @return true if there is element, false otherwise
-             */
-            //TODO
-            @Override
-            public boolean hasNext() {
-                return currentIndex < size;
-            }
-
-            /**
-             * Returns next element relative to current iterator
-             * @return next element
-             */
-            @Override
-            public E next() {
-                return array[currentIndex++];
-            }
-        };
+        return listIterator(0);
     }
     /**
      * Returns an array of type Object with all elements of main.java.MyArrayList object
@@ -152,8 +189,7 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
      */
     @Override
     public Object[] toArray() {
-        resize(size);
-        return Arrays.stream(array).toArray();
+        return Arrays.copyOf(array, size, Object[].class);
     }
     /**
      *Returns an array containing all the elements in this list in proper sequence (from first to last element);
@@ -178,7 +214,7 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
                 a[size] = null;
             return a;
         }
-        return (T[])Arrays.copyOf(array, size);
+        return (T[])Arrays.copyOf(array, size, a.getClass());
     }
     /**
      * Adds element to the end of array
@@ -189,6 +225,7 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
     public boolean add(E e) {
         ensureCapacity(size+1);
         array[size++] = e;
+        recordChange(Change.Kind.INSERT, size - 1, 1, array, size - 1);
         return true;
     }
 
@@ -214,20 +251,27 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
      */
     @Override
     public boolean containsAll(Collection<?> c) {
-        return c.parallelStream().allMatch(this::contains);
+        for (Object o : c){
+            if (!contains(o)){
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
      * Adds ALL the elements from passed Collection to the end of the array
      * @param c collection containing elements to be added to this collection
-     * @return true
+     * @return true if the array changed
      */
     @Override
     public boolean addAll(Collection<? extends E> c) {
-        ensureCapacity(size + c.size());
-        System.arraycopy(c.toArray(), 0, array, size, c.size());
-        size+=c.size();
-        return true;
+        Object[] added = c.toArray();
+        ensureCapacity(size + added.length);
+        System.arraycopy(added, 0, array, size, added.length);
+        recordChange(Change.Kind.INSERT, size, added.length, array, size);
+        size+=added.length;
+        return added.length != 0;
     }
 
     /**
@@ -235,50 +279,81 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
      * @param index index at which to insert the first element from the
      *              specified collection
      * @param c collection containing elements to be added to this list
-     * @return true
+     * @return true if the array changed
      * @throws IndexOutOfBoundsException
      */
     @Override
     public boolean addAll(int index, Collection<? extends E> c) {
-        if (index >= size || index < 0){
+        if (index > size || index < 0){
             throw new IndexOutOfBoundsException("Index of get out of bounds! Index: " + index);
         }
-        ensureCapacity(size+c.size());
-        System.arraycopy(array, index, array, index + c.size(), size-index);
-        System.arraycopy(c.toArray(), 0, array, index, c.size());
-        size+=c.size();
-        return true;
+        Object[] added = c.toArray();
+        ensureCapacity(size + added.length);
+        System.arraycopy(array, index, array, index + added.length, size-index);
+        System.arraycopy(added, 0, array, index, added.length);
+        size+=added.length;
+        recordChange(Change.Kind.INSERT, index, added.length, array, index);
+        return added.length != 0;
     }
 
     /**
      * Removes ALL occurrences of elements from passed Collection from array
      * @param c collection containing elements to be removed from this list
-     * @return true
+     * @return true if the array changed
      */
     @Override
     public boolean removeAll(Collection<?> c) {
-        Arrays.stream(array).filter(c::contains).forEach(this::remove);
-        return true;
+        return batchRemove(c, true);
     }
 
     /**
      * Removes ALL elements from array that are not in the passed Collection
      * @param c collection containing elements to be retained in this list
-     * @return true
+     * @return true if the array changed
      */
     @Override
     public boolean retainAll(Collection<?> c) {
-        Arrays.stream(array).filter(elem -> !(c.contains(elem))).forEach(this::remove);
+        return batchRemove(c, false);
+    }
+
+    /**
+     * Removes all elements whose presence in the collection equals the passed flag
+     * Kept elements are moved to the left in a single pass, and the freed cells are cleared once
+     * @param c collection to check elements against
+     * @param present true to remove elements present in the collection, false to remove absent ones
+     * @return true if the array changed
+     */
+    private boolean batchRemove(Collection<?> c, boolean present) {
+        Objects.requireNonNull(c);
+        int first = 0;
+        while (first < size && c.contains(array[first]) != present){
+            ++first;
+        }
+        if (first == size){
+            return false;
+        }
+        int kept = first;
+        for (int i = first + 1; i < size; ++i){
+            if (c.contains(array[i]) != present){
+                array[kept++] = array[i];
+            }
+        }
+        recordChange(Change.Kind.SET, first, kept - first, array, first);
+        recordChange(Change.Kind.REMOVE, kept, size - kept, null, 0);
+        Arrays.fill(array, kept, size, null);
+        size = kept;
         return true;
     }
 
     /**
      * Removes ALL elements from array
      * Capacity of the array is unchanged after this operation
+     * Only cells holding elements are cleared, since cells after size are always empty
      */
     @Override
     public void clear() {
-        Arrays.fill(array, null);
+        recordChange(Change.Kind.REMOVE, 0, size, null, 0);
+        Arrays.fill(array, 0, size, null);
         size = 0;
     }
 
@@ -300,7 +375,7 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
      * Replaces the current value at index with a given one
      * @param index index of the element to replace
      * @param element element to be stored at the specified position
-     * @return element of the array at the given index
+     * @return element previously at the given index
      * @throws IndexOutOfBoundsException
      */
     @Override
@@ -308,20 +383,28 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
         if (index >= size || index < 0){
             throw new IndexOutOfBoundsException("Index of get out of bounds! Index: " + index);
         }
-        return (array[index] = element);
+        E replaced = array[index];
+        array[index] = element;
+        recordChange(Change.Kind.SET, index, 1, array, index);
+        return replaced;
     }
 
     /**
      * Adds an element in the array at the index, shifting all elements after index to the right
      * @param index index at which the specified element is to be inserted
      * @param element element to be inserted
+     * @throws IndexOutOfBoundsException
      */
     @Override
     public void add(int index, E element) {
+        if (index > size || index < 0){
+            throw new IndexOutOfBoundsException("Index of get out of bounds! Index: " + index);
+        }
         ensureCapacity(size+1);
         System.arraycopy(array,index,array,index+1,size-index);
         array[index] = element;
         ++size;
+        recordChange(Change.Kind.INSERT, index, 1, array, index);
     }
 
     /**
@@ -338,6 +421,7 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
         E removed = array[index];
         System.arraycopy(array, index + 1, array, index, size - index - 1);
         array[--size] = null;
+        recordChange(Change.Kind.REMOVE, index, 1, null, 0);
         return removed;
     }
 
@@ -350,7 +434,7 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
     @Override
     public int indexOf(Object o) {
         for (int i = 0; i < size; ++i){
-            if (array[i].equals(o)){
+            if (same(o, array[i])){
                 return i;
             }
         }
@@ -366,7 +450,7 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
     @Override
     public int lastIndexOf(Object o) {
         for (int i = size-1; i >= 0; --i){
-            if (array[i].equals(o)){
+            if (same(o, array[i])){
                 return i;
             }
         }
@@ -385,14 +469,29 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
 
     /**
      * Returns ListIterator for object of main.java.MyArrayList at index
+     * Modifications made through the iterator are performed by the methods of the list,
+     * any other modification of the list makes the iterator throw {@link ConcurrentModificationException}
      * @param index index of the first element to be returned from the
      *        list iterator (by a call to {@link ListIterator#next next})
      * @return ListIterator of object main.java.MyArrayList at index
+     * @throws IndexOutOfBoundsException
      */
     @Override
     public ListIterator<E> listIterator(int index) {
+        if (index > size || index < 0){
+            throw new IndexOutOfBoundsException("Index of get out of bounds! Index: " + index);
+        }
         return new ListIterator<E>() {
+            /**
+             * Index of the element returned by the next call to next()
+             */
             private int currentIndex = index;
+            /**
+             * Index of the element returned by the last call to next() or previous(), -1 if there is none
+             */
+            private int lastIndex = -1;
+            private int expectedModCount = modCount;
+
             @Override
             public boolean hasNext() {
                 return currentIndex < size;
@@ -400,7 +499,12 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
 
             @Override
             public E next() {
-                return hasNext() ? array[currentIndex++] : null;
+                checkModCount();
+                if (!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                lastIndex = currentIndex++;
+                return array[lastIndex];
             }
 
             @Override
@@ -410,12 +514,17 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
 
             @Override
             public E previous() {
-                return hasPrevious() ? array[currentIndex--] : null;
+                checkModCount();
+                if (!hasPrevious()){
+                    throw new NoSuchElementException();
+                }
+                lastIndex = --currentIndex;
+                return array[lastIndex];
             }
 
             @Override
             public int nextIndex() {
-                return currentIndex + 1;
+                return currentIndex;
             }
 
             @Override
@@ -425,41 +534,125 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
 
             @Override
             public void remove() {
-                System.arraycopy(array, currentIndex + 1, array, currentIndex, size - currentIndex - 1);
-                array[--size] = null;
+                checkModCount();
+                if (lastIndex < 0){
+                    throw new IllegalStateException("Nothing to remove, call next() or previous() first!");
+                }
+                MyArrayList.this.remove(lastIndex);
+                currentIndex = lastIndex;
+                lastIndex = -1;
+                expectedModCount = modCount;
             }
 
             @Override
             public void set(E e) {
-                array[currentIndex] = e;
+                checkModCount();
+                if (lastIndex < 0){
+                    throw new IllegalStateException("Nothing to set, call next() or previous() first!");
+                }
+                MyArrayList.this.set(lastIndex, e);
+                expectedModCount = modCount;
             }
 
             @Override
             public void add(E e) {
-                ensureCapacity(size+1);
-                System.arraycopy(array,currentIndex + 1 ,array,currentIndex +2,size-currentIndex -1 );
-                array[currentIndex + 1] = e;
-                ++size;
+                checkModCount();
+                MyArrayList.this.add(currentIndex++, e);
+                lastIndex = -1;
+                expectedModCount = modCount;
+            }
+
+            private void checkModCount(){
+                if (modCount != expectedModCount){
+                    throw new ConcurrentModificationException();
+                }
             }
         };
     }
 
     /**
-     * Returns a sublist consisting of all elements starting at fromIndex and ending in toIndex
+     * Returns a view of the portion of this list between fromIndex and toIndex
+     * Changes of the view are written through to this list,
+     * while structural modification of this list not made through the view invalidates the view
      * @param fromIndex low endpoint (inclusive) of the subList
      * @param toIndex high endpoint (exclusive) of the subList
-     * @return new main.java.MyArrayList object
+     * @return view of the given range of this list
+     * @throws IndexOutOfBoundsException
+     * @throws IllegalArgumentException if fromIndex is greater than toIndex
      */
     @Override
     public List<E> subList(int fromIndex, int toIndex) {
-        MyArrayList<E> newArr = new MyArrayList<>();
+        if (fromIndex < 0 || toIndex > size){
+            throw new IndexOutOfBoundsException("Index of subList out of bounds! Range: " + fromIndex + ".." + toIndex);
+        }
         if (fromIndex > toIndex){
-            int tmp = fromIndex;
-            fromIndex = toIndex;
-            toIndex = tmp;
+            throw new IllegalArgumentException("Cannot create subList with fromIndex > toIndex!");
+        }
+        return new SubList(fromIndex, toIndex);
+    }
+
+    /**
+     * View of a range of the list, every operation is performed by the methods of the list with shifted indices
+     */
+    private class SubList extends AbstractList<E> implements RandomAccess {
+        private final int offset;
+        private int size;
+        private int expectedModCount = MyArrayList.this.modCount;
+
+        private SubList(int fromIndex, int toIndex){
+            this.offset = fromIndex;
+            this.size = toIndex - fromIndex;
+        }
+
+        @Override
+        public E get(int index) {
+            checkIndex(index, size);
+            return MyArrayList.this.get(offset + index);
+        }
+
+        @Override
+        public E set(int index, E element) {
+            checkIndex(index, size);
+            E replaced = MyArrayList.this.set(offset + index, element);
+            expectedModCount = MyArrayList.this.modCount;
+            return replaced;
+        }
+
+        @Override
+        public void add(int index, E element) {
+            checkIndex(index, size + 1);
+            MyArrayList.this.add(offset + index, element);
+            expectedModCount = MyArrayList.this.modCount;
+            ++size;
+        }
+
+        @Override
+        public E remove(int index) {
+            checkIndex(index, size);
+            E removed = MyArrayList.this.remove(offset + index);
+            expectedModCount = MyArrayList.this.modCount;
+            --size;
+            return removed;
+        }
+
+        @Override
+        public int size() {
+            checkModCount();
+            return size;
+        }
+
+        private void checkIndex(int index, int limit){
+            checkModCount();
+            if (index >= limit || index < 0){
+                throw new IndexOutOfBoundsException("Index of get out of bounds! Index: " + index);
+            }
+        }
+
+        private void checkModCount(){
+            if (MyArrayList.this.modCount != expectedModCount){
+                throw new ConcurrentModificationException();
+            }
         }
-        Arrays.stream(array, fromIndex, toIndex).forEach(newArr::add);
-        return newArr;
     }
 
     /**
@@ -479,8 +672,112 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
      * @return a string consisting of all elements in main.java.MyArrayList
      */
     public String toString(){
-        resize(size);
-        return Arrays.stream(array).map(aToM->aToM==null ? "null" : aToM.toString()).collect(Collectors.joining(", ", "[", "]"));
+        return Arrays.stream(array, 0, size).map(aToM->aToM==null ? "null" : aToM.toString()).collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    /**
+     * <p>Compares the specified object with this list for equality</p>
+     *
+     * Returns true if the object is also a list, both lists have the same size,
+     * and all corresponding pairs of elements are equal, as defined by {@link List#equals(Object)}.
+     * Another MyArrayList is compared array to array, checking references first and calling equals
+     * only for different references. Cached hashes are never used here, since they do not notice
+     * changes inside the elements
+     *
+     * @param o the object to be compared for equality with this list
+     * @return true if the specified object is equal to this list
+     */
+    @Override
+    public boolean equals(Object o){
+        if (o == this){
+            return true;
+        }
+        if (!(o instanceof List)){
+            return false;
+        }
+        if (o instanceof MyArrayList){
+            MyArrayList<?> other = (MyArrayList<?>) o;
+            if (size != other.size){
+                return false;
+            }
+            for (int i = 0; i < size; ++i){
+                if (!same(array[i], other.array[i])){
+                    return false;
+                }
+            }
+            return true;
+        }
+        Iterator<?> it = ((List<?>) o).iterator();
+        for (int i = 0; i < size; ++i){
+            if (!it.hasNext() || !same(array[i], it.next())){
+                return false;
+            }
+        }
+        return !it.hasNext();
+    }
+
+    /**
+     * <p>Returns the hash code of this list, as defined by {@link List#hashCode()}</p>
+     *
+     * The hash is computed once and cached until the list is modified,
+     * so repeated lookups of an unchanged list are O(1).
+     * Changes inside the elements themselves are not noticed
+     *
+     * @return the hash code value for this list
+     */
+    @Override
+    public int hashCode(){
+        if (hashCached && hashModCount == modCount){
+            return hash;
+        }
+        int h = 1;
+        for (int i = 0; i < size; ++i){
+            h = 31 * h + (array[i] == null ? 0 : array[i].hashCode());
+        }
+        hash = h;
+        hashModCount = modCount;
+        hashCached = true;
+        return h;
+    }
+
+    /**
+     * <p>Returns a 64-bit hash of the element hash codes of this list, in order</p>
+     *
+     * Element hash codes are mixed together with their positions and the size, so lists that differ
+     * in order or length rarely collide, unlike with the 31-based {@link #hashCode()}.
+     * Every element still contributes only its 32-bit hashCode, so elements with equal hash codes,
+     * such as "Aa" and "BB", always give equal hashes: a match is only a candidate for {@link #equals(Object)},
+     * not a proof of equal contents.
+     * The hash is cached until the list is modified, the same way as {@link #hashCode()},
+     * so changes inside the elements themselves are not noticed
+     *
+     * @return 64-bit hash of the elements in order
+     */
+    public long contentHash(){
+        if (contentHashCached && contentHashModCount == modCount){
+            return contentHash;
+        }
+        long h = size;
+        for (int i = 0; i < size; ++i){
+            long e = array[i] == null ? 0 : array[i].hashCode();
+            h = (h ^ mix64(e + 0x9E3779B97F4A7C15L * (i + 1))) * 0xBF58476D1CE4E5B9L;
+        }
+        contentHash = mix64(h);
+        contentHashModCount = modCount;
+        contentHashCached = true;
+        return contentHash;
+    }
+
+    /**
+     * Finalization step of MurmurHash3, spreads every input bit over the whole result
+     */
+    private static long mix64(long h){
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB93FE1A85B35L;
+        h ^= h >>> 33;
+        return h;
     }
 
     /**
@@ -490,6 +787,416 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
         resize(size);
     }
 
+    /**
+     * <p>Takes an empty list with default capacity from the pool of the current thread</p>
+     * @return empty list, which should be given back with {@link #release()}
+     */
+    public static <E> MyArrayList<E> borrow(){
+        return borrow(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * <p>Takes an empty list from the pool of the current thread</p>
+     *
+     * Pooled lists keep their backing arrays between uses, so short-lived lists do not allocate a new array each time.
+     * If the pool has no list of a fitting size, a new one is created
+     *
+     * @param capacity minimal amount of cells in the array
+     * @return empty list, which should be given back with {@link #release()}
+     * @throws IllegalArgumentException
+     */
+    public static <E> MyArrayList<E> borrow(int capacity){
+        if (capacity <= 0){
+            throw new IllegalArgumentException("Cannot initialize array with capacity <= 0!");
+        }
+        MyArrayList<E> list = MyArrayListPool.get().take(capacity);
+        list.borrowed = true;
+        if (MyArrayListPool.tracking()){
+            list.leak = MyArrayListPool.track(list);
+        }
+        return list;
+    }
+
+    /**
+     * <p>Gives a borrowed list back to the pool of the current thread</p>
+     *
+     * Only cells holding elements are cleared, and the array is kept for the next {@link #borrow(int)}.
+     * The list must not be used after it is released
+     *
+     * @throws IllegalStateException if the list was not borrowed or was already released
+     */
+    public void release(){
+        if (!borrowed){
+            throw new IllegalStateException("Cannot release list that was not borrowed!");
+        }
+        Arrays.fill(array, 0, size, null);
+        size = 0;
+        ++modCount;
+        borrowed = false;
+        disableChangeTracking();
+        if (leak != null){
+            leak.release();
+            leak = null;
+        }
+        MyArrayListPool.get().give(this, capacity);
+    }
+
+    /**
+     * <p>Applies a function to every element asynchronously, using the default executor</p>
+     * @see #mapAsync(Function, int, Executor)
+     */
+    public <R> CompletableFuture<MyArrayList<R>> mapAsync(Function<? super E, ? extends R> mapper, int parallelism){
+        return mapAsync(mapper, parallelism, asyncExecutor());
+    }
+
+    /**
+     * <p>Applies a function to every element asynchronously and collects the results into a new list</p>
+     *
+     * The elements are split into chunks, which are processed by at most parallelism tasks at once.
+     * Every result is written at the index of its element, so the order is preserved.
+     * If the function throws, the returned future completes exceptionally and the remaining chunks are skipped,
+     * cancelling the future also stops processing after the elements already started.
+     * The returned future is the one the tasks check, so cancelling it reaches all of them
+     *
+     * The list must not be structurally modified until the returned future is complete
+     *
+     * @param mapper function to apply to each element, may block
+     * @param parallelism maximum amount of elements processed at the same time
+     * @param executor executor to run the tasks on
+     * @return future of the new list holding mapped elements in the same order
+     * @throws IllegalArgumentException
+     */
+    public <R> CompletableFuture<MyArrayList<R>> mapAsync(Function<? super E, ? extends R> mapper, int parallelism, Executor executor){
+        E[] arr = array;
+        int n = size;
+        MyArrayList<R> mapped = new MyArrayList<>(Math.max(n, 1));
+        R[] out = mapped.array;
+        return runAsync(n, parallelism, executor, i -> out[i] = mapper.apply(arr[i]), null, () -> {
+            mapped.size = n;
+            return mapped;
+        });
+    }
+
+    /**
+     * <p>Performs an action for every element asynchronously, using the default executor</p>
+     * @see #forEachAsync(Consumer, int, Executor)
+     */
+    public CompletableFuture<Void> forEachAsync(Consumer<? super E> action, int parallelism){
+        return forEachAsync(action, parallelism, asyncExecutor());
+    }
+
+    /**
+     * <p>Performs an action for every element asynchronously</p>
+     *
+     * The elements are processed in chunks by at most parallelism tasks at once, in no particular order.
+     * Errors and cancellation are handled the same way as in {@link #mapAsync(Function, int, Executor)}
+     *
+     * @param action action to perform on each element, may block
+     * @param parallelism maximum amount of elements processed at the same time
+     * @param executor executor to run the tasks on
+     * @return future completed after all elements are processed
+     * @throws IllegalArgumentException
+     */
+    public CompletableFuture<Void> forEachAsync(Consumer<? super E> action, int parallelism, Executor executor){
+        E[] arr = array;
+        return runAsync(size, parallelism, executor, i -> action.accept(arr[i]), null, () -> null);
+    }
+
+    /**
+     * <p>Replaces every element with the result of a function asynchronously, using the default executor</p>
+     * @see #replaceAllAsync(UnaryOperator, int, Executor)
+     */
+    public CompletableFuture<Void> replaceAllAsync(UnaryOperator<E> operator, int parallelism){
+        return replaceAllAsync(operator, parallelism, asyncExecutor());
+    }
+
+    /**
+     * <p>Replaces every element with the result of a function asynchronously</p>
+     *
+     * Every result is written back into the array at the index of its element.
+     * Errors and cancellation are handled the same way as in {@link #mapAsync(Function, int, Executor)},
+     * in that case some of the elements may already be replaced
+     *
+     * The list must not be modified until the returned future is complete.
+     * The list counts as modified as soon as this method is called, and once more when the last task exits,
+     * whether the operation succeeded, failed or was cancelled, so cached hashes never outlive the written elements.
+     * If change tracking is enabled, the replacement is recorded when the last task exits
+     *
+     * @param operator function to apply to each element, may block
+     * @param parallelism maximum amount of elements processed at the same time
+     * @param executor executor to run the tasks on
+     * @return future completed after all elements are replaced
+     * @throws IllegalArgumentException
+     */
+    public CompletableFuture<Void> replaceAllAsync(UnaryOperator<E> operator, int parallelism, Executor executor){
+        E[] arr = array;
+        int n = size;
+        ++modCount;
+        return runAsync(n, parallelism, executor, i -> arr[i] = operator.apply(arr[i]),
+                () -> recordChange(Change.Kind.SET, 0, n, arr, 0), () -> null);
+    }
+
+    /**
+     * Runs action for every index in [0, length) in chunks, with at most parallelism tasks at once
+     * Each task takes the next free chunk until there are none left, or the result is already complete.
+     * The first error stops all tasks, but the result is completed only by the last task to exit:
+     * it runs onExit on every outcome, then completes the result with the error or with the value of onSuccess
+     */
+    private static <T> CompletableFuture<T> runAsync(int length, int parallelism, Executor executor, IntConsumer action,
+                                                     Runnable onExit, Supplier<T> onSuccess){
+        if (parallelism <= 0){
+            throw new IllegalArgumentException("Cannot run with parallelism <= 0!");
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (length == 0){
+            if (onExit != null){
+                onExit.run();
+            }
+            result.complete(onSuccess.get());
+            return result;
+        }
+        int tasks = Math.min(parallelism, length);
+        int chunk = Math.max(1, length / (tasks * 4));
+        int chunks = (int) (((long) length + chunk - 1) / chunk);
+        AtomicInteger nextChunk = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger(tasks);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Runnable finish = () -> {
+            try {
+                if (onExit != null){
+                    onExit.run();
+                }
+            } catch (Throwable t){
+                failure.compareAndSet(null, t);
+            }
+            if (failure.get() != null){
+                result.completeExceptionally(failure.get());
+                return;
+            }
+            try {
+                result.complete(onSuccess.get());
+            } catch (Throwable t){
+                result.completeExceptionally(t);
+            }
+        };
+        Runnable task = () -> {
+            try {
+                int current;
+                while (!result.isDone() && failure.get() == null && (current = nextChunk.getAndIncrement()) < chunks){
+                    int from = current * chunk;
+                    int to = (int) Math.min((long) from + chunk, length);
+                    for (int i = from; i < to && !result.isDone() && failure.get() == null; ++i){
+                        action.accept(i);
+                    }
+                }
+            } catch (Throwable t){
+                failure.compareAndSet(null, t);
+            }
+            if (running.decrementAndGet() == 0){
+                finish.run();
+            }
+        };
+        for (int i = 0; i < tasks; ++i){
+            try {
+                executor.execute(task);
+            } catch (RuntimeException e){
+                failure.compareAndSet(null, e);
+                if (running.addAndGet(i - tasks) == 0){
+                    finish.run();
+                }
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Executor used by async operations when none is given:
+     * virtual threads if the runtime supports them, otherwise a shared cached pool of daemon threads.
+     * Every operation runs at most parallelism tasks, so the pool grows to the largest parallelism in use
+     * and idle threads exit after a minute. The common ForkJoinPool is not used, since its size
+     * would silently cap parallelism and blocking functions would starve it
+     */
+    private static Executor asyncExecutor(){
+        return AsyncExecutorHolder.EXECUTOR;
+    }
+
+    private static final class AsyncExecutorHolder {
+        private static final Executor EXECUTOR = create();
+
+        private static Executor create(){
+            try {
+                return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException | UnsupportedOperationException e){
+                AtomicInteger threads = new AtomicInteger();
+                return Executors.newCachedThreadPool(r -> {
+                    Thread thread = new Thread(r, "MyArrayList-async-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+    }
+
+    /**
+     * <p>Creates a batch of mutations against the current state of this list</p>
+     *
+     * Inserts, removals and replacements are recorded against the indices the list has right now
+     * and are applied together by {@link Batch#commit()} in a single linear pass,
+     * instead of shifting the tail of the array once per operation
+     *
+     * @return new empty batch bound to this list
+     */
+    public Batch batch(){
+        return new Batch();
+    }
+
+    /**
+     * <p>Starts recording changes of this list</p>
+     *
+     * Every modification is recorded as a {@link Change}: a range of inserted, removed or replaced elements.
+     * Consecutive modifications of adjacent elements are merged into a single range,
+     * so appending or replacing many elements in a row is kept as one change.
+     * Does nothing if change tracking is already enabled
+     */
+    public void enableChangeTracking(){
+        if (changes == null){
+            changes = new ArrayList<>();
+            changesBase = 0;
+            sealedChanges = 0;
+        }
+    }
+
+    /**
+     * Stops recording changes of this list and drops all recorded changes
+     */
+    public void disableChangeTracking(){
+        changes = null;
+    }
+
+    /**
+     * @return true if changes of this list are being recorded, false otherwise
+     */
+    public boolean isChangeTracking(){
+        return changes != null;
+    }
+
+    /**
+     * Marks the current state of the list
+     * @return checkpoint to be passed to {@link #changesSince(long)}
+     * @throws IllegalStateException if change tracking is disabled
+     */
+    public long checkpoint(){
+        checkChangeTracking();
+        sealedChanges = changes.size();
+        return changesBase + changes.size();
+    }
+
+    /**
+     * <p>Returns all changes made after the checkpoint</p>
+     *
+     * Applying the changes in the returned order to a copy of the list taken at the checkpoint
+     * (for example with {@link Change#applyTo(List)}) makes the copy equal to this list
+     *
+     * @param checkpoint checkpoint returned by {@link #checkpoint()}
+     * @return changes in the order they were made
+     * @throws IllegalStateException if change tracking is disabled
+     * @throws IllegalArgumentException if the checkpoint is unknown or was discarded
+     */
+    public List<Change<E>> changesSince(long checkpoint){
+        checkChangeTracking();
+        if (checkpoint < changesBase || checkpoint > changesBase + changes.size()){
+            throw new IllegalArgumentException("Unknown checkpoint: " + checkpoint);
+        }
+        sealedChanges = changes.size();
+        return Collections.unmodifiableList(new ArrayList<>(changes.subList((int) (checkpoint - changesBase), changes.size())));
+    }
+
+    /**
+     * Drops all changes made before the checkpoint, earlier checkpoints cannot be used after this
+     * @param checkpoint checkpoint returned by {@link #checkpoint()}
+     * @throws IllegalStateException if change tracking is disabled
+     * @throws IllegalArgumentException if the checkpoint is unknown or was discarded
+     */
+    public void discardChangesBefore(long checkpoint){
+        checkChangeTracking();
+        if (checkpoint < changesBase || checkpoint > changesBase + changes.size()){
+            throw new IllegalArgumentException("Unknown checkpoint: " + checkpoint);
+        }
+        int discarded = (int) (checkpoint - changesBase);
+        changes.subList(0, discarded).clear();
+        changesBase = checkpoint;
+        sealedChanges = Math.max(0, sealedChanges - discarded);
+    }
+
+    /**
+     * <p>Computes changes which turn this list into another one</p>
+     *
+     * Equal elements at the beginning and at the end of both lists are skipped,
+     * and the differing middle part is described by at most two changes: a replacement and an insertion or removal.
+     * Runs in linear time, comparing references first and calling equals only for different references.
+     * The result is not minimal if the lists differ in several distant places
+     *
+     * @param other list to compare with
+     * @return changes which turn this list into other when applied in order, empty if the lists are equal
+     */
+    public List<Change<E>> diff(MyArrayList<E> other){
+        List<Change<E>> result = new ArrayList<>();
+        if (other == this){
+            return result;
+        }
+        int limit = Math.min(size, other.size);
+        int prefix = 0;
+        while (prefix < limit && same(array[prefix], other.array[prefix])){
+            ++prefix;
+        }
+        int suffix = 0;
+        while (suffix < limit - prefix && same(array[size - 1 - suffix], other.array[other.size - 1 - suffix])){
+            ++suffix;
+        }
+        int removed = size - prefix - suffix, inserted = other.size - prefix - suffix;
+        int replaced = Math.min(removed, inserted);
+        if (replaced > 0){
+            result.add(new Change<>(Change.Kind.SET, prefix, replaced, other.array, prefix));
+        }
+        if (removed > replaced){
+            result.add(new Change<>(Change.Kind.REMOVE, prefix + replaced, removed - replaced, null, 0));
+        } else if (inserted > replaced){
+            result.add(new Change<>(Change.Kind.INSERT, prefix + replaced, inserted - replaced, other.array, prefix + replaced));
+        }
+        return result;
+    }
+
+    private static boolean same(Object a, Object b){
+        return a == b || (a != null && a.equals(b));
+    }
+
+    private void checkChangeTracking(){
+        if (changes == null){
+            throw new IllegalStateException("Change tracking is disabled!");
+        }
+    }
+
+    /**
+     * Counts a modification of the list, and records it as a change if change tracking is enabled,
+     * merging it into the last change when possible
+     * @param kind kind of the change
+     * @param index index of the first changed element
+     * @param count amount of changed elements
+     * @param values array holding new values of inserted or replaced elements, null for removal
+     * @param from index of the first new value in values
+     */
+    private void recordChange(Change.Kind kind, int index, int count, Object[] values, int from){
+        ++modCount;
+        if (changes == null || count == 0){
+            return;
+        }
+        if (changes.size() > sealedChanges && changes.get(changes.size() - 1).merge(kind, index, count, values, from)){
+            return;
+        }
+        changes.add(new Change<>(kind, index, count, values, from));
+    }
+
     /**
      * Sorts this list according to the order induced by the specified
      * {@link Comparator}.  The sort is <i>stable</i>: this method must not
@@ -549,10 +1256,31 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
      */
     @Override
     public void sort(Comparator c){
+        if (c == null){
+            c = Comparator.naturalOrder();
+        }
         quicksort(array, 0, size - 1, c);
+        recordChange(Change.Kind.SET, 0, size, array, 0);
     }
 
     private void quicksort(E[] arr, int lb, int ub, Comparator c){
+        long bounds = partition(arr, lb, ub, c);
+        int left = (int) (bounds >>> 32), right = (int) bounds;
+        if (lb < right){
+            quicksort(arr, lb, right, c);
+        }
+        if (left < ub){
+            quicksort(arr, left, ub, c);
+        }
+    }
+
+    /**
+     * Hoare partition of [lb, ub] around the element in the middle, used by sorting and selection
+     * After partitioning, elements in [lb, right] are not greater than the pivot, elements in [left, ub] are not less,
+     * and elements between right and left are equal to the pivot
+     * @return left in the high 32 bits and right in the low 32 bits
+     */
+    private static <E> long partition(E[] arr, int lb, int ub, Comparator c){
         int left = lb, right = ub;
         E pivot = arr[(left + right) / 2];
         do{
@@ -569,11 +1297,586 @@ public class MyArrayList<E> implements List<E>, RandomAccess, Cloneable {
                 ++left; -- right;
             }
         } while (left <= right);
-        if (lb < right){
-            quicksort(arr, lb, right, c);
+        return ((long) left << 32) | (right & 0xFFFFFFFFL);
+    }
+
+    /**
+     * <p>Rearranges the list so that the element at index k is the one that would be there if the list was sorted</p>
+     *
+     * All elements before k are not greater than it, and all elements after k are not less.
+     * Uses introselect: quickselect with the same partitioning as {@link #sort(Comparator)},
+     * which takes O(n) time on average. If partitioning does not converge after 2*log2(n) steps,
+     * the remaining range is sorted instead, which limits the worst case to O(nlog(n))
+     *
+     * @param k index of the element to select
+     * @param c the {@code Comparator} used to compare list elements, null for natural ordering
+     * @return element at index k
+     * @throws IndexOutOfBoundsException
+     */
+    public E nthElement(int k, Comparator<? super E> c){
+        c = orNaturalOrder(c);
+        if (k >= size || k < 0){
+            throw new IndexOutOfBoundsException("Index of get out of bounds! Index: " + k);
         }
-        if (left < ub){
-            quicksort(arr, left, ub, c);
+        int lb = 0, ub = size - 1;
+        int depth = 2 * (32 - Integer.numberOfLeadingZeros(size));
+        while (lb < ub){
+            if (depth-- == 0){
+                Arrays.sort(array, lb, ub + 1, c);
+                break;
+            }
+            long bounds = partition(array, lb, ub, c);
+            int left = (int) (bounds >>> 32), right = (int) bounds;
+            if (k <= right){
+                ub = right;
+            } else if (k >= left){
+                lb = left;
+            } else {
+                break;
+            }
+        }
+        recordChange(Change.Kind.SET, 0, size, array, 0);
+        return array[k];
+    }
+
+    /**
+     * <p>Rearranges the list so that the first k elements are the k smallest ones in ascending order</p>
+     *
+     * Order of the remaining elements is unspecified.
+     * Keeps the first k cells as a binary max-heap, and replaces its top with every smaller element of the rest,
+     * after which the heap is sorted in place. Runs in O(nlog(k)) time without extra memory
+     *
+     * @param k amount of elements to sort, values larger than size sort the whole list
+     * @param c the {@code Comparator} used to compare list elements, null for natural ordering
+     * @throws IllegalArgumentException if k is negative
+     */
+    public void partialSort(int k, Comparator<? super E> c){
+        c = orNaturalOrder(c);
+        if (k < 0){
+            throw new IllegalArgumentException("Cannot select k < 0 elements!");
+        }
+        k = Math.min(k, size);
+        if (k == 0){
+            return;
+        }
+        for (int i = k / 2 - 1; i >= 0; --i){
+            siftDown(array, i, k, c);
+        }
+        for (int i = k; i < size; ++i){
+            if (c.compare(array[i], array[0]) < 0){
+                E tmp = array[i];
+                array[i] = array[0];
+                array[0] = tmp;
+                siftDown(array, 0, k, c);
+            }
+        }
+        heapSort(array, k, c);
+        recordChange(Change.Kind.SET, 0, size, array, 0);
+    }
+
+    /**
+     * <p>Returns the k greatest elements in descending order, without modifying this list</p>
+     *
+     * Keeps a binary min-heap of the k greatest elements seen so far in an array of exactly k cells,
+     * which then becomes the array of the returned list. Runs in O(nlog(k)) time
+     *
+     * @param k amount of elements to return, values larger than size return the whole list
+     * @param c the {@code Comparator} used to compare list elements, null for natural ordering
+     * @return new list with the k greatest elements, greatest first
+     * @throws IllegalArgumentException if k is negative
+     */
+    public MyArrayList<E> topK(int k, Comparator<? super E> c){
+        Comparator<? super E> order = orNaturalOrder(c);
+        if (k < 0){
+            throw new IllegalArgumentException("Cannot select k < 0 elements!");
+        }
+        k = Math.min(k, size);
+        E[] heap = (E[])new Object[Math.max(k, 1)];
+        if (k > 0){
+            Comparator<? super E> reversed = (a, b) -> order.compare(b, a);
+            System.arraycopy(array, 0, heap, 0, k);
+            for (int i = k / 2 - 1; i >= 0; --i){
+                siftDown(heap, i, k, reversed);
+            }
+            for (int i = k; i < size; ++i){
+                if (order.compare(array[i], heap[0]) > 0){
+                    heap[0] = array[i];
+                    siftDown(heap, 0, k, reversed);
+                }
+            }
+            heapSort(heap, k, reversed);
+        }
+        return new MyArrayList<>(heap, k);
+    }
+
+    /**
+     * <p>Finds several order statistics at once</p>
+     *
+     * For every fraction p in ps, the element with nearest rank ceil(p * size) in sorted order is returned
+     * (the smallest element for p = 0). All ranks are selected in a single multi-quickselect pass:
+     * after every partition, only the parts still containing requested ranks are processed further.
+     * The list is rearranged in the process, the same way as by {@link #nthElement(int, Comparator)}
+     *
+     * @param ps fractions between 0 and 1, in any order
+     * @param c the {@code Comparator} used to compare list elements, null for natural ordering
+     * @return new list with the element for every fraction, in the order of ps
+     * @throws IllegalArgumentException if any fraction is outside of [0, 1]
+     * @throws NoSuchElementException if the list is empty and ps is not
+     */
+    public MyArrayList<E> percentiles(double[] ps, Comparator<? super E> c){
+        c = orNaturalOrder(c);
+        if (ps.length == 0){
+            return new MyArrayList<>();
+        }
+        if (size == 0){
+            throw new NoSuchElementException("Cannot compute percentiles of empty list!");
+        }
+        int[] ranks = new int[ps.length];
+        for (int i = 0; i < ps.length; ++i){
+            if (!(ps[i] >= 0 && ps[i] <= 1)){
+                throw new IllegalArgumentException("Percentile must be between 0 and 1! Percentile: " + ps[i]);
+            }
+            ranks[i] = Math.max(0, (int) Math.ceil(ps[i] * size) - 1);
+        }
+        int[] sortedRanks = ranks.clone();
+        Arrays.sort(sortedRanks);
+        multiSelect(array, 0, size - 1, sortedRanks, 0, sortedRanks.length, c, 2 * (32 - Integer.numberOfLeadingZeros(size)));
+        recordChange(Change.Kind.SET, 0, size, array, 0);
+
+        MyArrayList<E> result = new MyArrayList<>(Math.max(ps.length, 1));
+        for (int rank : ranks){
+            result.add(array[rank]);
+        }
+        return result;
+    }
+
+    /**
+     * Places elements of all ranks in [from, to) of sorted ranks at their positions, all ranks lie within [lb, ub]
+     */
+    private static <E> void multiSelect(E[] arr, int lb, int ub, int[] ranks, int from, int to, Comparator c, int depth){
+        while (from < to && lb < ub){
+            if (depth-- == 0){
+                Arrays.sort(arr, lb, ub + 1, c);
+                return;
+            }
+            long bounds = partition(arr, lb, ub, c);
+            int left = (int) (bounds >>> 32), right = (int) bounds;
+            int lower = from, upper;
+            while (lower < to && ranks[lower] <= right){
+                ++lower;
+            }
+            upper = lower;
+            while (upper < to && ranks[upper] < left){
+                ++upper;
+            }
+            multiSelect(arr, lb, right, ranks, from, lower, c, depth);
+            lb = left;
+            from = upper;
+        }
+    }
+
+    /**
+     * Restores max-heap order in heap[0, n) below index i
+     */
+    private static <E> void siftDown(E[] heap, int i, int n, Comparator<? super E> c){
+        E element = heap[i];
+        int child;
+        while ((child = 2 * i + 1) < n){
+            if (child + 1 < n && c.compare(heap[child + 1], heap[child]) > 0){
+                ++child;
+            }
+            if (c.compare(heap[child], element) <= 0){
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = element;
+    }
+
+    /**
+     * @return the comparator, or natural ordering if it is null, the same way as in {@link #sort(Comparator)}
+     */
+    private static <E> Comparator<? super E> orNaturalOrder(Comparator<? super E> c){
+        return c != null ? c : (Comparator<? super E>) (Comparator) Comparator.naturalOrder();
+    }
+
+    /**
+     * Sorts max-heap heap[0, n) in ascending order
+     */
+    private static <E> void heapSort(E[] heap, int n, Comparator<? super E> c){
+        for (int end = n - 1; end > 0; --end){
+            E tmp = heap[end];
+            heap[end] = heap[0];
+            heap[0] = tmp;
+            siftDown(heap, 0, end, c);
+        }
+    }
+
+    /**
+     * <p>Set of deferred mutations for the enclosing {@link MyArrayList}</p>
+     *
+     * All indices refer to the list as it was when the batch was created, regardless of the operations recorded before.
+     * Conflicting operations are resolved deterministically on commit:
+     * <ul>
+     *     <li>inserts at the same index are placed in the order they were recorded, before the element at that index</li>
+     *     <li>if an element is both removed and replaced, the removal wins</li>
+     *     <li>if an element is replaced several times, the last recorded value wins</li>
+     * </ul>
+     *
+     * All operations are validated when they are recorded, so commit cannot fail halfway through.
+     * Once committed or rolled back, the batch cannot be used again
+     */
+    public class Batch {
+        private static final int INSERT = 0;
+        private static final int SET = 1;
+        private static final int REMOVE = 2;
+        private static final long SEQ_MASK = (1L << 31) - 1;
+
+        /**
+         * Sort keys of recorded operations: index, then inserts before other operations, then recording order
+         */
+        private long[] keys = new long[16];
+        private byte[] kinds = new byte[16];
+        private Object[] values = new Object[16];
+        /**
+         * Amount of recorded operations
+         */
+        private int count;
+        /**
+         * Size of the list when the batch was created
+         */
+        private final int baseSize = size;
+        /**
+         * Modification count of the list when the batch was created
+         */
+        private final int baseModCount = modCount;
+        private boolean closed;
+
+        private Batch(){
+        }
+
+        /**
+         * Records insertion of an element before the element currently at index
+         * @param index index in the original list, from 0 to size inclusive
+         * @param element element to be inserted
+         * @return this batch
+         * @throws IndexOutOfBoundsException
+         */
+        public Batch add(int index, E element){
+            if (index > baseSize || index < 0){
+                throw new IndexOutOfBoundsException("Index of batch out of bounds! Index: " + index);
+            }
+            record(index, INSERT, element);
+            return this;
+        }
+
+        /**
+         * Records replacement of the element currently at index
+         * @param index index in the original list
+         * @param element element to be stored at the specified position
+         * @return this batch
+         * @throws IndexOutOfBoundsException
+         */
+        public Batch set(int index, E element){
+            if (index >= baseSize || index < 0){
+                throw new IndexOutOfBoundsException("Index of batch out of bounds! Index: " + index);
+            }
+            record(index, SET, element);
+            return this;
+        }
+
+        /**
+         * Records removal of the element currently at index
+         * Removing the same element twice has the same effect as removing it once
+         * @param index index in the original list
+         * @return this batch
+         * @throws IndexOutOfBoundsException
+         */
+        public Batch remove(int index){
+            if (index >= baseSize || index < 0){
+                throw new IndexOutOfBoundsException("Index of batch out of bounds! Index: " + index);
+            }
+            record(index, REMOVE, null);
+            return this;
+        }
+
+        /**
+         * Applies all recorded operations to the list
+         * Runs of untouched elements are moved in place, each at most once: runs moving left front to back,
+         * runs moving right back to front, so no run is overwritten before it is moved.
+         * A new array is allocated only if the list outgrows its capacity, and replacements alone move nothing
+         * @throws IllegalStateException if the batch was already committed or rolled back
+         * @throws java.util.ConcurrentModificationException if the list was modified since the batch was created
+         */
+        public void commit(){
+            checkOpen();
+            if (modCount != baseModCount){
+                throw new ConcurrentModificationException("List was modified after the batch was created!");
+            }
+            Arrays.sort(keys, 0, count);
+
+            long newSize = baseSize;
+            int lastRemoved = -1;
+            for (int i = 0; i < count; ++i){
+                int seq = (int) (keys[i] & SEQ_MASK);
+                if (kinds[seq] == INSERT){
+                    ++newSize;
+                } else if (kinds[seq] == REMOVE){
+                    int index = (int) (keys[i] >>> 32);
+                    if (index != lastRemoved){
+                        --newSize;
+                        lastRemoved = index;
+                    }
+                }
+            }
+            if (newSize > Integer.MAX_VALUE - 8){
+                throw new IllegalStateException("Cannot commit batch, list would exceed maximum size!");
+            }
+
+            int newCapacity = newSize > capacity ? Math.max(capacity + capacity/2 + 1, (int) newSize) : capacity;
+            // untouched runs of the old array as triples: source index, length, destination index
+            int[] runs = new int[3 * (count + 1)];
+            int runCount = 0;
+            // sort keys already consumed are reused for placements: destination index << 31 | operation
+            int placed = 0;
+            int read = 0, write = 0, i = 0;
+            while (i < count){
+                int index = (int) (keys[i] >>> 32);
+                if (index > read){
+                    runs[3 * runCount] = read;
+                    runs[3 * runCount + 1] = index - read;
+                    runs[3 * runCount + 2] = write;
+                    ++runCount;
+                    write += index - read;
+                    read = index;
+                }
+
+                boolean removed = false;
+                int replacement = -1;
+                for (; i < count && (int) (keys[i] >>> 32) == index; ++i){
+                    int seq = (int) (keys[i] & SEQ_MASK);
+                    switch (kinds[seq]){
+                        case INSERT:
+                            keys[placed++] = ((long) write << 31) | seq;
+                            recordChange(Change.Kind.INSERT, write, 1, values, seq);
+                            ++write;
+                            break;
+                        case SET:
+                            replacement = seq;
+                            break;
+                        default:
+                            removed = true;
+                    }
+                }
+                if (removed){
+                    recordChange(Change.Kind.REMOVE, write, 1, null, 0);
+                    ++read;
+                } else if (replacement >= 0){
+                    keys[placed++] = ((long) write << 31) | replacement;
+                    recordChange(Change.Kind.SET, write, 1, values, replacement);
+                    ++write;
+                    ++read;
+                }
+            }
+            if (read < baseSize){
+                runs[3 * runCount] = read;
+                runs[3 * runCount + 1] = baseSize - read;
+                runs[3 * runCount + 2] = write;
+                ++runCount;
+            }
+
+            E[] dest = newCapacity > capacity ? (E[])new Object[newCapacity] : array;
+            for (int r = 0; r < runCount; ++r){
+                int from = runs[3 * r], to = runs[3 * r + 2];
+                if (to < from || (to == from && dest != array)){
+                    System.arraycopy(array, from, dest, to, runs[3 * r + 1]);
+                }
+            }
+            for (int r = runCount - 1; r >= 0; --r){
+                int from = runs[3 * r], to = runs[3 * r + 2];
+                if (to > from){
+                    System.arraycopy(array, from, dest, to, runs[3 * r + 1]);
+                }
+            }
+            for (int p = 0; p < placed; ++p){
+                dest[(int) (keys[p] >>> 31)] = (E) values[(int) (keys[p] & SEQ_MASK)];
+            }
+            if (dest == array && newSize < baseSize){
+                Arrays.fill(array, (int) newSize, baseSize, null);
+            }
+
+            array = dest;
+            capacity = newCapacity;
+            size = (int) newSize;
+            close();
+        }
+
+        /**
+         * Discards all recorded operations, leaving the list untouched
+         * @throws IllegalStateException if the batch was already committed or rolled back
+         */
+        public void rollback(){
+            checkOpen();
+            close();
+        }
+
+        private void record(int index, int kind, E element){
+            checkOpen();
+            if (count == keys.length){
+                int newLength = count + count/2 + 1;
+                keys = Arrays.copyOf(keys, newLength);
+                kinds = Arrays.copyOf(kinds, newLength);
+                values = Arrays.copyOf(values, newLength);
+            }
+            long slot = kind == INSERT ? 0 : 1;
+            keys[count] = ((((long) index << 1) | slot) << 31) | count;
+            kinds[count] = (byte) kind;
+            values[count] = element;
+            ++count;
+        }
+
+        private void checkOpen(){
+            if (closed){
+                throw new IllegalStateException("Batch is already committed or rolled back!");
+            }
+        }
+
+        private void close(){
+            closed = true;
+            keys = null;
+            kinds = null;
+            values = null;
+        }
+    }
+
+    /**
+     * <p>Single change of {@link MyArrayList}: a range of inserted, removed or replaced elements</p>
+     *
+     * Index refers to the list right before this change is applied
+     *
+     * @param <E> type of elements
+     */
+    public static final class Change<E> {
+        /**
+         * Kind of change
+         */
+        public enum Kind {
+            /**
+             * Elements were inserted at index, shifting following elements to the right
+             */
+            INSERT,
+            /**
+             * Elements were removed starting at index, shifting following elements to the left
+             */
+            REMOVE,
+            /**
+             * Elements starting at index were replaced
+             */
+            SET
+        }
+
+        private final Kind kind;
+        private int index;
+        private int count;
+        /**
+         * New values of inserted or replaced elements, null for removal
+         */
+        private Object[] values;
+
+        private Change(Kind kind, int index, int count, Object[] values, int from){
+            this.kind = kind;
+            this.index = index;
+            this.count = count;
+            if (kind != Kind.REMOVE){
+                this.values = Arrays.copyOfRange(values, from, from + count);
+            }
+        }
+
+        public Kind kind(){
+            return kind;
+        }
+
+        public int index(){
+            return index;
+        }
+
+        public int count(){
+            return count;
+        }
+
+        /**
+         * @return new values of inserted or replaced elements, empty for removal
+         */
+        public List<E> values(){
+            if (values == null){
+                return Collections.emptyList();
+            }
+            return Collections.unmodifiableList((List<E>) Arrays.asList(values).subList(0, count));
+        }
+
+        /**
+         * Applies this change to another list
+         * @param target list to change
+         */
+        public void applyTo(List<E> target){
+            switch (kind){
+                case INSERT:
+                    target.addAll(index, values());
+                    break;
+                case REMOVE:
+                    for (int i = 0; i < count; ++i){
+                        target.remove(index);
+                    }
+                    break;
+                default:
+                    for (int i = 0; i < count; ++i){
+                        target.set(index + i, (E) values[i]);
+                    }
+            }
+        }
+
+        /**
+         * Tries to extend this change with a following one
+         * @return true if the following change is merged into this one, false otherwise
+         */
+        private boolean merge(Kind kind, int index, int count, Object[] values, int from){
+            if (kind == Kind.REMOVE){
+                if (this.kind != Kind.REMOVE){
+                    return false;
+                }
+                if (index == this.index){
+                    this.count += count;
+                    return true;
+                }
+                if (index + count == this.index){
+                    this.index = index;
+                    this.count += count;
+                    return true;
+                }
+                return false;
+            }
+            if (this.kind == Kind.REMOVE || (kind == Kind.INSERT && this.kind != Kind.INSERT)){
+                return false;
+            }
+            if (kind == Kind.SET && index >= this.index && index + count <= this.index + this.count){
+                System.arraycopy(values, from, this.values, index - this.index, count);
+                return true;
+            }
+            if (kind == this.kind && index == this.index + this.count){
+                if (this.count + count > this.values.length){
+                    this.values = Arrays.copyOf(this.values, Math.max(this.values.length + this.values.length/2 + 1, this.count + count));
+                }
+                System.arraycopy(values, from, this.values, this.count, count);
+                this.count += count;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public String toString(){
+            return kind + " " + index + (values == null ? " x" + count : " " + values());
         }
     }
 }
@@ -0,0 +1,179 @@
+import java.lang.ref.Cleaner;
+import java.util.function.Consumer;
+
+/**
+ * Thread-local pool of short-lived MyArrayList objects
+ * Lists are grouped into size classes by capacity (powers of two from 256 to 2^16),
+ * every class holds at most 16 free lists, and all free lists of a thread together hold at most 2^18 cells
+ * (1-2 MB of references). Lists that grew well above their size class are not kept either.
+ * Anything beyond that is left to the garbage collector
+ *
+ * With system property {@code myarraylist.pool.debug=true} every borrowed list remembers where it was borrowed,
+ * and lists that become unreachable without being released are reported to System.err
+ *
+ * Used by {@link MyArrayList#borrow(int)} and {@link MyArrayList#release()}
+ */
+final class MyArrayListPool {
+    private static final int MIN_CLASS = 8;
+    private static final int MAX_CLASS = 16;
+    private static final int MAX_LISTS_PER_CLASS = 16;
+    /**
+     * Maximum total capacity of all free lists of one thread
+     */
+    private static final int MAX_RETAINED_CELLS = 1 << 18;
+    /**
+     * Whether borrowed lists are tracked for leaks, set by system property myarraylist.pool.debug
+     */
+    static final boolean DEBUG = Boolean.getBoolean("myarraylist.pool.debug");
+    /**
+     * Receiver of leak reports set by {@link #trackLeaks(Consumer)}, null if there is none
+     */
+    private static volatile Consumer<Throwable> leakReporter;
+
+    private static final ThreadLocal<MyArrayListPool> POOL = ThreadLocal.withInitial(MyArrayListPool::new);
+    private static Cleaner cleaner;
+
+    /**
+     * Free lists of each size class, used as stacks
+     */
+    private final MyArrayList<?>[][] lists = new MyArrayList<?>[MAX_CLASS - MIN_CLASS + 1][MAX_LISTS_PER_CLASS];
+    /**
+     * Amount of free lists in each size class
+     */
+    private final int[] counts = new int[MAX_CLASS - MIN_CLASS + 1];
+    /**
+     * Capacity of each free list
+     */
+    private final int[][] capacities = new int[MAX_CLASS - MIN_CLASS + 1][MAX_LISTS_PER_CLASS];
+    /**
+     * Total capacity of all free lists
+     */
+    private int retainedCells;
+
+    private MyArrayListPool(){
+    }
+
+    /**
+     * @return pool of the current thread
+     */
+    static MyArrayListPool get(){
+        return POOL.get();
+    }
+
+    /**
+     * Takes a free list with at least given capacity from the pool, or creates a new one
+     * @param capacity minimal capacity of the list
+     * @return empty list
+     */
+    <E> MyArrayList<E> take(int capacity){
+        int cls = Math.max(MIN_CLASS, 32 - Integer.numberOfLeadingZeros(capacity - 1));
+        if (cls > MAX_CLASS){
+            return new MyArrayList<>(capacity);
+        }
+        int slot = cls - MIN_CLASS;
+        if (counts[slot] == 0){
+            return new MyArrayList<>(1 << cls);
+        }
+        MyArrayList<E> list = (MyArrayList<E>) lists[slot][--counts[slot]];
+        lists[slot][counts[slot]] = null;
+        retainedCells -= capacities[slot][counts[slot]];
+        return list;
+    }
+
+    /**
+     * Puts an empty list back into the pool, if its size class is not full yet and the thread limit allows it
+     * Lists more than a quarter larger than their size class are dropped, so grown arrays are not kept
+     * @param list empty list
+     * @param capacity capacity of the list
+     */
+    void give(MyArrayList<?> list, int capacity){
+        int cls = 31 - Integer.numberOfLeadingZeros(capacity);
+        if (capacity <= 0 || cls < MIN_CLASS || cls > MAX_CLASS){
+            return;
+        }
+        int classCapacity = 1 << cls;
+        if (capacity > classCapacity + classCapacity/4 || retainedCells + capacity > MAX_RETAINED_CELLS){
+            return;
+        }
+        int slot = cls - MIN_CLASS;
+        if (counts[slot] < MAX_LISTS_PER_CLASS){
+            capacities[slot][counts[slot]] = capacity;
+            lists[slot][counts[slot]++] = list;
+            retainedCells += capacity;
+        }
+    }
+
+    /**
+     * @return total capacity of all free lists of the current thread
+     */
+    static int retainedCells(){
+        return get().retainedCells;
+    }
+
+    /**
+     * Test hook: tracks lists borrowed from now on for leaks regardless of the system property,
+     * and hands the borrow sites of leaked ones to the reporter instead of printing them to System.err
+     * @param reporter receiver of leak reports, null to return to the system property setting
+     */
+    static void trackLeaks(Consumer<Throwable> reporter){
+        leakReporter = reporter;
+    }
+
+    /**
+     * @return true if borrowed lists have to be tracked for leaks
+     */
+    static boolean tracking(){
+        return DEBUG || leakReporter != null;
+    }
+
+    /**
+     * Starts leak tracking of a borrowed list
+     * @param list borrowed list
+     * @return leak record, which has to be {@link Leak#release() released} together with the list
+     */
+    static Leak track(MyArrayList<?> list){
+        Consumer<Throwable> reporter = leakReporter;
+        Leak leak = new Leak(new Throwable("MyArrayList was borrowed here and never released"),
+                reporter != null ? reporter : Throwable::printStackTrace);
+        leak.cleanable = cleaner().register(list, leak);
+        return leak;
+    }
+
+    private static synchronized Cleaner cleaner(){
+        if (cleaner == null){
+            cleaner = Cleaner.create();
+        }
+        return cleaner;
+    }
+
+    /**
+     * Record of a borrowed list, reported if the list is collected before being released
+     * Must not reference the list itself, or the list would never become unreachable
+     */
+    static final class Leak implements Runnable {
+        private final Throwable site;
+        private final Consumer<Throwable> reporter;
+        private Cleaner.Cleanable cleanable;
+        private volatile boolean released;
+
+        private Leak(Throwable site, Consumer<Throwable> reporter){
+            this.site = site;
+            this.reporter = reporter;
+        }
+
+        /**
+         * Marks the list as released and stops tracking it
+         */
+        void release(){
+            released = true;
+            cleanable.clean();
+        }
+
+        @Override
+        public void run() {
+            if (!released){
+                reporter.accept(site);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+import org.junit.Assume;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Helpers of opt-in benchmarks
+ * Benchmarks are skipped unless enabled with system property myarraylist.bench:
+ * {@code mvn test -Dtest=MyArrayListTest#batchBenchmark -Dmyarraylist.bench=true}
+ */
+final class Benchmarks {
+
+    private Benchmarks(){
+    }
+
+    /**
+     * Skips the calling test unless benchmarks are enabled
+     */
+    static void assumeEnabled(){
+        Assume.assumeTrue("Benchmarks are enabled with -Dmyarraylist.bench=true", Boolean.getBoolean("myarraylist.bench"));
+    }
+
+    /**
+     * @return amount of bytes allocated by the current thread so far
+     */
+    static long allocatedBytes(){
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,93 @@
+import jdk.jfr.Name;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ColumnarListTest {
+    private static final class Event {
+        final int id;
+        final long timestamp;
+        final double value;
+
+        Event(int id, long timestamp, double value){
+            this.id = id;
+            this.timestamp = timestamp;
+            this.value = value;
+        }
+    }
+
+    private static final ColumnarList.Schema<Event> SCHEMA = ColumnarList.Schema.<Event>builder()
+            .intColumn("id", e -> e.id)
+            .longColumn("timestamp", e -> e.timestamp)
+            .doubleColumn("value", e -> e.value)
+            .build(row -> new Event(row.getInt(0), row.getLong(1), row.getDouble(2)));
+
+    private static ColumnarList<Event> events;
+
+    @Before
+    public void reset(){
+        events = new ColumnarList<>(SCHEMA);
+        for (int i = 0; i < 1000; ++i){
+            events.add(new Event(i, 1000 - i, i * 0.5));
+        }
+    }
+
+    @Test
+    @Name("Get rebuilds record")
+    public void get_success(){
+        Event e = events.get(10);
+        Assert.assertEquals(10, e.id);
+        Assert.assertEquals(990, e.timestamp);
+        Assert.assertEquals(5.0, e.value, 0.0);
+        Assert.assertEquals(990, events.row(10).getLong("timestamp"));
+    }
+
+    @Test
+    @Name("Column aggregates and filters")
+    public void columnScan_success(){
+        Assert.assertEquals(999L * 1000 / 2, events.sumLong("id"));
+        Assert.assertEquals(999.0 * 1000 / 4, events.sumDouble("value"), 1e-9);
+        Assert.assertArrayEquals(new int[]{0, 1, 2}, events.filterLong("timestamp", t -> t > 997));
+        Assert.assertThrows(IllegalArgumentException.class, () -> events.sumDouble("id"));
+    }
+
+    @Test
+    @Name("Sort by column")
+    public void sortBy_success(){
+        events.sortBy("timestamp");
+        for (int i = 0; i < 1000; ++i){
+            Assert.assertEquals(i + 1, events.row(i).getLong("timestamp"));
+            Assert.assertEquals(999 - i, events.get(i).id);
+        }
+    }
+
+    @Test
+    @Name("Benchmark: column sum against list of records")
+    public void sumBenchmark(){
+        Benchmarks.assumeEnabled();
+        int rows = 1_000_000;
+        ColumnarList<Event> columnar = new ColumnarList<>(SCHEMA, rows);
+        MyArrayList<Event> records = new MyArrayList<>(rows);
+        for (int i = 0; i < rows; ++i){
+            Event event = new Event(i, 1000L * i, i * 0.5);
+            columnar.add(event);
+            records.add(event);
+        }
+        long columnNanos = Long.MAX_VALUE, recordNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 20; ++round){
+            long start = System.nanoTime();
+            long columnSum = columnar.sumLong("timestamp");
+            columnNanos = Math.min(columnNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            long recordSum = 0;
+            for (Event event : records){
+                recordSum += event.timestamp;
+            }
+            recordNanos = Math.min(recordNanos, System.nanoTime() - start);
+            Assert.assertEquals(recordSum, columnSum);
+        }
+        System.out.printf("Columnar: sum of one long column over %d rows, records %.2f ms, column %.2f ms, %.1fx%n",
+                rows, recordNanos / 1e6, columnNanos / 1e6, (double) recordNanos / columnNanos);
+    }
+}
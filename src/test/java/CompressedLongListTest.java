@@ -0,0 +1,136 @@
+import jdk.jfr.Name;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+public class CompressedLongListTest {
+
+    @Test
+    @Name("Sorted ids are compressed")
+    public void sortedIds_success(){
+        CompressedLongList list = new CompressedLongList();
+        long[] expected = new long[10000];
+        long id = 1_000_000_000L;
+        Random random = new Random(42);
+        for (int i = 0; i < expected.length; ++i){
+            id += 1 + random.nextInt(16);
+            expected[i] = id;
+            list.add(id);
+        }
+        for (int i = 0; i < expected.length; ++i){
+            Assert.assertEquals(expected[i], list.getLong(i));
+        }
+        Assert.assertArrayEquals(expected, list.toArray());
+        long allocated = list.sizeInBytes();
+        list.trimToSize();
+        Assert.assertTrue(list.sizeInBytes() <= allocated);
+        Assert.assertTrue(list.sizeInBytes() * 4 < expected.length * 8L);
+
+        for (int i = 0; i < 1000; ++i){
+            list.add(id + i);
+        }
+        Assert.assertArrayEquals(expected, Arrays.copyOf(list.toArray(), expected.length));
+        Assert.assertEquals(id + 999, list.getLong(list.size() - 1));
+    }
+
+    @Test
+    @Name("Extreme values and iterator")
+    public void extremeValues_success(){
+        CompressedLongList list = new CompressedLongList();
+        long[] expected = new long[1000];
+        Random random = new Random(7);
+        for (int i = 0; i < expected.length; ++i){
+            expected[i] = i % 3 == 0 ? Long.MIN_VALUE : i % 3 == 1 ? Long.MAX_VALUE : random.nextLong();
+            list.add(expected[i]);
+        }
+        PrimitiveIterator.OfLong it = list.iterator();
+        for (long value : expected){
+            Assert.assertTrue(it.hasNext());
+            Assert.assertEquals(value, it.nextLong());
+        }
+        Assert.assertFalse(it.hasNext());
+        Assert.assertThrows(IndexOutOfBoundsException.class, () -> list.getLong(1000));
+    }
+
+    @Test
+    @Name("Constant block")
+    public void constantBlock_success(){
+        CompressedLongList list = new CompressedLongList();
+        for (int i = 0; i < 300; ++i){
+            list.add(5);
+        }
+        Assert.assertEquals(5, list.getLong(0));
+        Assert.assertEquals(5, list.getLong(299));
+        Assert.assertEquals(300, list.size());
+    }
+
+    @Test
+    @Name("Append during iteration")
+    public void appendDuringIteration_success(){
+        CompressedLongList list = new CompressedLongList();
+        for (int i = 0; i < 100; ++i){
+            list.add(1000 + i);
+        }
+        PrimitiveIterator.OfLong it = list.iterator();
+        for (int i = 0; i < 50; ++i){
+            Assert.assertEquals(1000 + i, it.nextLong());
+        }
+        for (int i = 100; i < 200; ++i){
+            list.add(1000 + i);
+        }
+        for (int i = 50; i < 200; ++i){
+            Assert.assertEquals(1000 + i, it.nextLong());
+        }
+        Assert.assertFalse(it.hasNext());
+    }
+
+    @Test
+    @Name("Benchmark: compression ratio and decode throughput")
+    public void compressionBenchmark(){
+        Benchmarks.assumeEnabled();
+        int count = 1_000_000;
+        String[] names = {"sorted ids", "clustered ids", "random longs"};
+        StringBuilder report = new StringBuilder(String.format("Compression: %d values%n", count));
+        report.append(String.format("%-14s %10s %10s %16s %16s%n", "distribution", "ratio", "trimmed", "iterate values/s",
+                "get values/s"));
+        for (int d = 0; d < names.length; ++d){
+            Random random = new Random(20261019L);
+            CompressedLongList list = new CompressedLongList();
+            long id = 1_000_000_000L;
+            for (int i = 0; i < count; ++i){
+                if (d == 0){
+                    id += 1 + random.nextInt(4);
+                    list.add(id);
+                } else if (d == 1){
+                    list.add(1_700_000_000_000L + random.nextInt(64) * 1_000_000L + random.nextInt(1000));
+                } else {
+                    list.add(random.nextLong());
+                }
+            }
+            long iterateNanos = Long.MAX_VALUE, getNanos = Long.MAX_VALUE, sink = 0;
+            for (int round = 0; round < 10; ++round){
+                long start = System.nanoTime();
+                PrimitiveIterator.OfLong it = list.iterator();
+                while (it.hasNext()){
+                    sink += it.nextLong();
+                }
+                iterateNanos = Math.min(iterateNanos, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                for (int i = 0, j = 0; i < count; ++i, j = (j + 7919) % count){
+                    sink += list.getLong(j);
+                }
+                getNanos = Math.min(getNanos, System.nanoTime() - start);
+            }
+            Assert.assertNotEquals(0, sink);
+            long allocated = list.sizeInBytes();
+            list.trimToSize();
+            report.append(String.format("%-14s %10.2f %10.2f %16.0f %16.0f%n", names[d], count * 8.0 / allocated,
+                    count * 8.0 / list.sizeInBytes(), count * 1e9 / iterateNanos, count * 1e9 / getNanos));
+        }
+        System.out.print(report);
+    }
+}
@@ -0,0 +1,106 @@
+import jdk.jfr.Name;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+public class ConcurrentAppendLogTest {
+
+    @Test
+    @Name("Many producers append to one log")
+    public void concurrentAppend_success() throws InterruptedException {
+        ConcurrentAppendLog<Integer> log = new ConcurrentAppendLog<>(16);
+        int threads = 8, perThread = 10000;
+        Thread[] producers = new Thread[threads];
+        for (int t = 0; t < threads; ++t){
+            int first = t * perThread;
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; ++i){
+                    log.append(first + i);
+                }
+            });
+            producers[t].start();
+        }
+        for (Thread producer : producers){
+            producer.join();
+        }
+        Assert.assertEquals(threads * perThread, log.size());
+
+        MyArrayList<Integer> sealed = log.seal();
+        Assert.assertEquals(threads * perThread, sealed.size());
+        boolean[] seen = new boolean[threads * perThread];
+        for (int i = 0; i < sealed.size(); ++i){
+            Assert.assertFalse(seen[sealed.get(i)]);
+            seen[sealed.get(i)] = true;
+        }
+        Assert.assertThrows(IllegalStateException.class, () -> log.append(0));
+        Assert.assertThrows(IllegalStateException.class, log::seal);
+    }
+
+    @Test
+    @Name("Seal without copying")
+    public void sealFirstSegment_success(){
+        ConcurrentAppendLog<String> log = new ConcurrentAppendLog<>();
+        log.append("a");
+        log.append("b");
+        Assert.assertEquals("b", log.get(1));
+        Assert.assertThrows(IndexOutOfBoundsException.class, () -> log.get(2));
+        MyArrayList<String> sealed = log.seal();
+        Assert.assertEquals("[a, b]", sealed.toString());
+        sealed.add("c");
+        Assert.assertEquals(3, sealed.size());
+    }
+
+    @Test
+    @Name("Benchmark: producer throughput against a synchronized list")
+    public void appendBenchmark() throws InterruptedException {
+        Benchmarks.assumeEnabled();
+        int total = 1 << 21;
+        StringBuilder report = new StringBuilder(String.format("Append: %d elements, %d cpus%n", total,
+                Runtime.getRuntime().availableProcessors()));
+        report.append(String.format("%-8s %18s %18s%n", "threads", "log + seal /s", "locked appends/s"));
+        for (int threads = 1; threads <= 64; threads *= 2){
+            long logNanos = Long.MAX_VALUE, lockedNanos = Long.MAX_VALUE;
+            for (int round = 0; round < 3; ++round){
+                ConcurrentAppendLog<Integer> log = new ConcurrentAppendLog<>();
+                long nanos = produce(threads, total, log::append);
+                long start = System.nanoTime();
+                MyArrayList<Integer> sealed = log.seal();
+                logNanos = Math.min(logNanos, nanos + System.nanoTime() - start);
+                Assert.assertEquals(total, sealed.size());
+
+                List<Integer> locked = Collections.synchronizedList(new MyArrayList<>());
+                lockedNanos = Math.min(lockedNanos, produce(threads, total, locked::add));
+                Assert.assertEquals(total, locked.size());
+            }
+            report.append(String.format("%-8d %18.0f %18.0f%n", threads, total * 1e9 / logNanos, total * 1e9 / lockedNanos));
+        }
+        System.out.print(report);
+    }
+
+    /**
+     * Splits total appends of boxed values evenly between threads
+     * @return nanoseconds from starting the first thread to the end of the last one
+     */
+    private static long produce(int threads, int total, IntConsumer append) throws InterruptedException {
+        Thread[] producers = new Thread[threads];
+        int perThread = total / threads;
+        for (int t = 0; t < threads; ++t){
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; ++i){
+                    append.accept(i & 127);
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread producer : producers){
+            producer.start();
+        }
+        for (Thread producer : producers){
+            producer.join();
+        }
+        return System.nanoTime() - start;
+    }
+}
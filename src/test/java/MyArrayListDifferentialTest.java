@@ -0,0 +1,311 @@
+import jdk.jfr.Name;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/**
+ * Differential test of MyArrayList against java.util.ArrayList
+ *
+ * Random sequences of operations are applied to both lists, and after every operation
+ * the results and the contents of the lists must be equal. Every operation is generated from its own seed
+ * and the current size of the list, so any subsequence of a failing sequence is still valid,
+ * which is used to shrink failing sequences to a short reproduction
+ *
+ * Soak mode runs random operations for a given time and reports throughput and allocation per operation kind:
+ * {@code mvn test -Dtest=MyArrayListDifferentialTest -Dmyarraylist.soak.seconds=60}
+ */
+public class MyArrayListDifferentialTest {
+    private static final int SEQUENCES = 300;
+    private static final int OPERATIONS = 200;
+    private static final Comparator<Integer> COMPARATOR = Comparator.nullsFirst(Comparator.naturalOrder());
+    private static final String[] KINDS = {
+            "add", "addAt", "removeAt", "removeObject", "set", "get", "addAll", "addAllAt", "removeAll", "retainAll",
+            "sort", "subList", "subListWrite", "iterator", "listIterator", "search", "clear", "equals"
+    };
+
+    @Test
+    @Name("Random operation sequences match ArrayList")
+    public void randomSequences_success(){
+        long baseSeed = Long.getLong("myarraylist.diff.seed", 20261019L);
+        for (int sequence = 0; sequence < SEQUENCES; ++sequence){
+            long[] seeds = new Random(baseSeed + sequence).longs(OPERATIONS).toArray();
+            String failure = run(seeds, null);
+            if (failure != null){
+                long[] shrunk = shrink(seeds);
+                Assert.fail("Sequence " + (baseSeed + sequence) + " failed, shrunk to " + shrunk.length + " operations:\n"
+                        + describe(shrunk) + run(shrunk, null));
+            }
+        }
+    }
+
+    @Test
+    @Name("Soak mode")
+    public void soak(){
+        long seconds = Long.getLong("myarraylist.soak.seconds", 0);
+        Assume.assumeTrue("Soak mode is enabled with -Dmyarraylist.soak.seconds", seconds > 0);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long[] counts = new long[KINDS.length], nanos = new long[KINDS.length], bytes = new long[KINDS.length];
+
+        Random random = new Random(Long.getLong("myarraylist.diff.seed", 20261019L));
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long sequences = 0;
+        while (System.nanoTime() < deadline){
+            MyArrayList<Integer> mine = new MyArrayList<>();
+            ArrayList<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < OPERATIONS * 10; ++i){
+                Operation operation = new Operation(random.nextLong(), expected.size());
+                long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+                long start = System.nanoTime();
+                Object actual = operation.apply(mine);
+                nanos[operation.kind] += System.nanoTime() - start;
+                bytes[operation.kind] += threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+                ++counts[operation.kind];
+                Object result = operation.apply(expected);
+                Assert.assertEquals(operation.toString(), result, actual);
+                Assert.assertEquals(operation.toString(), expected, mine);
+            }
+            ++sequences;
+        }
+
+        StringBuilder report = new StringBuilder(String.format("Soak: %d sequences in %d s%n", sequences, seconds));
+        report.append(String.format("%-14s %12s %14s %14s%n", "operation", "count", "ops/s", "bytes/op"));
+        for (int k = 0; k < KINDS.length; ++k){
+            if (counts[k] > 0){
+                report.append(String.format("%-14s %12d %14.0f %14.1f%n", KINDS[k], counts[k],
+                        counts[k] * 1e9 / Math.max(1, nanos[k]), (double) bytes[k] / counts[k]));
+            }
+        }
+        System.out.print(report);
+    }
+
+    /**
+     * Applies operations to both lists
+     * @param seeds seeds of the operations
+     * @param log if not null, receives description of every operation
+     * @return description of the first mismatch, null if there is none
+     */
+    private static String run(long[] seeds, StringBuilder log){
+        MyArrayList<Integer> mine = new MyArrayList<>();
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < seeds.length; ++i){
+            Operation operation = new Operation(seeds[i], expected.size());
+            if (log != null){
+                log.append("  ").append(operation).append('\n');
+            }
+            Object result = operation.apply(expected);
+            Object actual;
+            try {
+                actual = operation.apply(mine);
+            } catch (Throwable t){
+                actual = t.toString();
+            }
+            if (!Objects.equals(result, actual)){
+                return "Operation " + i + " " + operation + " returned " + actual + ", expected " + result;
+            }
+            String contents = compare(expected, mine);
+            if (contents != null){
+                return "After operation " + i + " " + operation + ": " + contents;
+            }
+        }
+        return null;
+    }
+
+    private static String compare(ArrayList<Integer> expected, MyArrayList<Integer> mine){
+        try {
+            if (expected.size() != mine.size()){
+                return "size " + mine.size() + ", expected " + expected.size();
+            }
+            if (!Arrays.equals(expected.toArray(), mine.toArray())){
+                return "contents " + mine + ", expected " + expected;
+            }
+            if (!mine.equals(expected) || mine.hashCode() != expected.hashCode()){
+                return "equals or hashCode differ from ArrayList";
+            }
+        } catch (Throwable t){
+            return t.toString();
+        }
+        return null;
+    }
+
+    /**
+     * Removes operations from a failing sequence while it still fails, first in large chunks, then one by one
+     */
+    private static long[] shrink(long[] seeds){
+        long[] current = seeds;
+        for (int chunk = current.length / 2; chunk >= 1; chunk = chunk == 1 ? 0 : chunk / 2){
+            for (int from = 0; from + chunk <= current.length; ){
+                long[] candidate = new long[current.length - chunk];
+                System.arraycopy(current, 0, candidate, 0, from);
+                System.arraycopy(current, from + chunk, candidate, from, current.length - from - chunk);
+                if (run(candidate, null) != null){
+                    current = candidate;
+                } else {
+                    from += chunk;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static String describe(long[] seeds){
+        StringBuilder log = new StringBuilder();
+        run(seeds, log);
+        return log.toString();
+    }
+
+    /**
+     * Single operation, generated from a seed and the size of the list before it
+     */
+    private static final class Operation {
+        private final long seed;
+        private final int kind;
+        private final int index;
+        private final int index2;
+        private final Integer value;
+        private final List<Integer> values;
+
+        Operation(long seed, int size){
+            this.seed = seed;
+            Random random = new Random(seed);
+            kind = random.nextInt(KINDS.length);
+            // mostly valid indices, sometimes one past the valid range to check bounds
+            index = random.nextInt(20) == 0 ? size + 1 : random.nextInt(size + 1);
+            index2 = random.nextInt(size + 1);
+            value = randomValue(random);
+            int count = random.nextInt(8);
+            values = new ArrayList<>();
+            for (int i = 0; i < count; ++i){
+                values.add(randomValue(random));
+            }
+        }
+
+        private static Integer randomValue(Random random){
+            return random.nextInt(30) == 0 ? null : random.nextInt(50);
+        }
+
+        /**
+         * @return result of the operation, or the name of the thrown exception
+         */
+        Object apply(List<Integer> list){
+            try {
+                return applyOrThrow(list);
+            } catch (IndexOutOfBoundsException e){
+                return "IndexOutOfBoundsException";
+            } catch (RuntimeException e){
+                return e.getClass().getSimpleName();
+            }
+        }
+
+        private Object applyOrThrow(List<Integer> list){
+            int from = Math.min(index, index2), to = Math.max(index, index2);
+            switch (KINDS[kind]){
+                case "add":
+                    return list.add(value);
+                case "addAt":
+                    list.add(index, value);
+                    return null;
+                case "removeAt":
+                    return list.remove(index);
+                case "removeObject":
+                    return list.remove(value);
+                case "set":
+                    return list.set(index, value);
+                case "get":
+                    return list.get(index);
+                case "addAll":
+                    return list.addAll(values);
+                case "addAllAt":
+                    return list.addAll(index, values);
+                case "removeAll":
+                    return list.removeAll(values);
+                case "retainAll":
+                    return list.retainAll(values.isEmpty() ? Collections.singletonList(value) : values);
+                case "sort":
+                    list.sort(COMPARATOR);
+                    return null;
+                case "subList":
+                    return new ArrayList<>(list.subList(from, to));
+                case "subListWrite": {
+                    List<Integer> sub = list.subList(from, Math.min(to, list.size()));
+                    sub.add(0, value);
+                    if (sub.size() > 1){
+                        sub.set(1, value);
+                        sub.remove(sub.size() - 1);
+                    }
+                    return new ArrayList<>(sub);
+                }
+                case "iterator":
+                    return iterate(list.iterator());
+                case "listIterator":
+                    return walk(list.listIterator(index));
+                case "search":
+                    return Arrays.asList(list.indexOf(value), list.lastIndexOf(value), list.contains(value), list.containsAll(values));
+                case "clear":
+                    if (index2 % 4 == 0){
+                        list.clear();
+                    }
+                    return list.isEmpty();
+                default:
+                    return Arrays.asList(list.equals(new ArrayList<>(list)), list.hashCode());
+            }
+        }
+
+        /**
+         * Iterates over the whole list, removing some elements
+         */
+        private List<Object> iterate(Iterator<Integer> it){
+            List<Object> seen = new ArrayList<>();
+            while (it.hasNext()){
+                Integer next = it.next();
+                seen.add(next);
+                if (Objects.equals(next, value)){
+                    it.remove();
+                }
+            }
+            return seen;
+        }
+
+        /**
+         * Performs random steps of a list iterator
+         */
+        private List<Object> walk(ListIterator<Integer> it){
+            Random random = new Random(seed ^ 0x5DEECE66DL);
+            List<Object> seen = new ArrayList<>();
+            for (int step = 0; step < 12; ++step){
+                try {
+                    switch (random.nextInt(6)){
+                        case 0:
+                            seen.add(it.next());
+                            break;
+                        case 1:
+                            seen.add(it.previous());
+                            break;
+                        case 2:
+                            it.remove();
+                            break;
+                        case 3:
+                            it.set(value);
+                            break;
+                        case 4:
+                            it.add(value);
+                            break;
+                        default:
+                            seen.add(Arrays.asList(it.hasNext(), it.hasPrevious(), it.nextIndex(), it.previousIndex()));
+                    }
+                } catch (RuntimeException e){
+                    seen.add(e.getClass().getSimpleName());
+                }
+            }
+            return seen;
+        }
+
+        @Override
+        public String toString(){
+            return KINDS[kind] + "(index=" + index + ", index2=" + index2 + ", value=" + value + ", values=" + values + ")";
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import jdk.jfr.Name;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class MyArrayListPoolTest {
+
+    @After
+    public void reset(){
+        MyArrayListPool.trackLeaks(null);
+    }
+
+    @Test
+    @Name("Pool caps retained lists")
+    public void poolCaps_success(){
+        MyArrayList<Integer> grown = MyArrayList.borrow(256);
+        int before = MyArrayListPool.retainedCells();
+        for (int i = 0; i < 1000; ++i){
+            grown.add(i);
+        }
+        grown.release();
+        Assert.assertEquals(before, MyArrayListPool.retainedCells());
+
+        MyArrayList<Integer> huge = MyArrayList.borrow(1 << 20);
+        huge.release();
+        Assert.assertEquals(before, MyArrayListPool.retainedCells());
+
+        MyArrayList<?>[] lists = new MyArrayList<?>[64];
+        for (int i = 0; i < lists.length; ++i){
+            lists[i] = MyArrayList.borrow(1 << 16);
+        }
+        for (MyArrayList<?> list : lists){
+            list.release();
+        }
+        Assert.assertTrue(MyArrayListPool.retainedCells() <= 1 << 18);
+    }
+
+    @Test
+    @Name("Leaked lists are reported in debug mode")
+    public void leakDetection_success() throws InterruptedException {
+        List<Throwable> reports = new CopyOnWriteArrayList<>();
+        MyArrayListPool.trackLeaks(reports::add);
+
+        MyArrayList<Integer> released = MyArrayList.borrow();
+        released.add(1);
+        released.release();
+        borrowAndDrop();
+
+        for (int i = 0; i < 100 && reports.isEmpty(); ++i){
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assert.assertEquals(1, reports.size());
+        Assert.assertEquals("MyArrayList was borrowed here and never released", reports.get(0).getMessage());
+        Assert.assertEquals("borrowAndDrop", reports.get(0).getStackTrace()[2].getMethodName());
+    }
+
+    private static void borrowAndDrop(){
+        MyArrayList<Integer> leaked = MyArrayList.borrow(1 << 17);
+        leaked.add(1);
+    }
+}
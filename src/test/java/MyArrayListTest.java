@@ -4,6 +4,14 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.lang.Math.abs;
 
@@ -212,7 +220,9 @@ public class MyArrayListTest {
         Iterator<Integer> it = integerMyArrayList.iterator();
 
         Assert.assertTrue(it.hasNext());
+        Assert.assertEquals((Integer) 0, it.next());
         Assert.assertEquals((Integer) 1, it.next());
+        Assert.assertFalse(it.hasNext());
     }
 
     @Test
@@ -224,12 +234,12 @@ public class MyArrayListTest {
         ListIterator<Integer> it = integerMyArrayList.listIterator();
         Assert.assertTrue(it.hasNext());
         Assert.assertFalse(it.hasPrevious());
-        Assert.assertEquals(1, it.nextIndex());
+        Assert.assertEquals(0, it.nextIndex());
         Assert.assertEquals(-1, it.previousIndex());
-        Assert.assertEquals((Integer) 1, it.next());
+        Assert.assertEquals((Integer) 0, it.next());
         Assert.assertEquals((Integer) 0, it.previous());
         it.add(100);
-        Assert.assertEquals((Integer) 100, it.next());
+        Assert.assertEquals((Integer) 100, it.previous());
     }
 
     @Test
@@ -241,12 +251,12 @@ public class MyArrayListTest {
         ListIterator<Integer> it = integerMyArrayList.listIterator(5);
         Assert.assertTrue(it.hasNext());
         Assert.assertTrue(it.hasPrevious());
-        Assert.assertEquals(6, it.nextIndex());
+        Assert.assertEquals(5, it.nextIndex());
         Assert.assertEquals(4, it.previousIndex());
-        Assert.assertEquals((Integer) 6, it.next());
+        Assert.assertEquals((Integer) 5, it.next());
         Assert.assertEquals((Integer) 5, it.previous());
         it.add(100);
-        Assert.assertEquals((Integer) 100, it.next());
+        Assert.assertEquals((Integer) 100, it.previous());
 
 
     }
@@ -298,4 +308,599 @@ public class MyArrayListTest {
             throw new RuntimeException(e);
         }
     }
+
+    @Test
+    @Name("Benchmark: batch against single edits")
+    public void batchBenchmark(){
+        Benchmarks.assumeEnabled();
+        int size = 1_000_000, edits = 10_000;
+        Random random = new Random(20261019L);
+        int[] indices = new int[edits];
+        for (int i = 0; i < edits; ++i){
+            indices[i] = random.nextInt(size - edits);
+        }
+        long single = Long.MAX_VALUE, batched = Long.MAX_VALUE, bytes = 0;
+        for (int round = 0; round < 3; ++round){
+            MyArrayList<Integer> list = new MyArrayList<>(size + edits);
+            for (int i = 0; i < size; ++i){
+                list.add(i);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < edits; ++i){
+                if ((i & 1) == 0){
+                    list.add(indices[i], -i);
+                } else {
+                    list.remove(indices[i]);
+                }
+            }
+            single = Math.min(single, System.nanoTime() - start);
+            Assert.assertEquals(size, list.size());
+
+            long allocatedBefore = Benchmarks.allocatedBytes();
+            MyArrayList<Integer>.Batch batch = list.batch();
+            start = System.nanoTime();
+            for (int i = 0; i < edits; ++i){
+                if ((i & 1) == 0){
+                    batch.add(indices[i], -i);
+                } else {
+                    batch.remove(indices[i]);
+                }
+            }
+            batch.commit();
+            batched = Math.min(batched, System.nanoTime() - start);
+            bytes = Benchmarks.allocatedBytes() - allocatedBefore;
+        }
+        System.out.printf("Batch: %d edits on %d elements, single %.1f ms, batch %.1f ms, %.0fx, %d bytes allocated by batch%n",
+                edits, size, single / 1e6, batched / 1e6, (double) single / batched, bytes);
+    }
+
+    @Test
+    @Name("Batch of mutations")
+    public void batch_success(){
+        ArrayList<Integer> integerArrayList = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i){
+            integerMyArrayList.add(i);
+            integerArrayList.add(i);
+        }
+        integerMyArrayList.batch()
+                .set(998, -1)
+                .remove(998)
+                .add(500, -2)
+                .add(500, -3)
+                .set(10, -4)
+                .set(10, -5)
+                .remove(0)
+                .remove(0)
+                .add(1000, -6)
+                .commit();
+
+        integerArrayList.add(1000, -6);
+        integerArrayList.remove(998);
+        integerArrayList.add(500, -3);
+        integerArrayList.add(500, -2);
+        integerArrayList.set(10, -5);
+        integerArrayList.remove(0);
+        Assert.assertArrayEquals(integerArrayList.toArray(), integerMyArrayList.toArray());
+    }
+
+    @Test
+    @Name("Batch rollback")
+    public void batchRollback_success(){
+        for (int i = 0; i < 300; ++i){
+            integerMyArrayList.add(i);
+        }
+        MyArrayList<Integer>.Batch batch = integerMyArrayList.batch().remove(0).add(300, 300);
+        batch.rollback();
+        Assert.assertEquals(300, integerMyArrayList.size());
+        Assert.assertEquals((Integer) 0, integerMyArrayList.get(0));
+        Assert.assertThrows(IllegalStateException.class, batch::commit);
+    }
+
+    @Test
+    @Name("Random batches match one by one application")
+    public void batchRandom_success(){
+        Random random = new Random(26);
+        for (int round = 0; round < 500; ++round){
+            int size = random.nextInt(40);
+            MyArrayList<Integer> list = new MyArrayList<>(size + 1 + random.nextInt(20));
+            for (int i = 0; i < size; ++i){
+                list.add(i);
+            }
+            list.enableChangeTracking();
+            long checkpoint = list.checkpoint();
+            List<Integer> before = new ArrayList<>(list);
+
+            List<List<Integer>> inserts = new ArrayList<>();
+            for (int i = 0; i <= size; ++i){
+                inserts.add(new ArrayList<>());
+            }
+            Integer[] replaced = new Integer[size];
+            boolean[] removed = new boolean[size];
+            MyArrayList<Integer>.Batch batch = list.batch();
+            int operations = random.nextInt(30);
+            for (int o = 0; o < operations; ++o){
+                int kind = size == 0 ? 0 : random.nextInt(3);
+                int value = 1000 + o;
+                if (kind == 0){
+                    int index = random.nextInt(size + 1);
+                    batch.add(index, value);
+                    inserts.get(index).add(value);
+                } else if (kind == 1){
+                    int index = random.nextInt(size);
+                    batch.set(index, value);
+                    replaced[index] = value;
+                } else {
+                    int index = random.nextInt(size);
+                    batch.remove(index);
+                    removed[index] = true;
+                }
+            }
+            batch.commit();
+
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i <= size; ++i){
+                expected.addAll(inserts.get(i));
+                if (i < size && !removed[i]){
+                    expected.add(replaced[i] != null ? replaced[i] : before.get(i));
+                }
+            }
+            Assert.assertEquals(expected, list);
+            for (MyArrayList.Change<Integer> change : list.changesSince(checkpoint)){
+                change.applyTo(before);
+            }
+            Assert.assertEquals(expected, before);
+        }
+    }
+
+    @Test
+    @Name("Benchmark: borrowed lists against new lists")
+    public void poolBenchmark(){
+        Benchmarks.assumeEnabled();
+        int iterations = 200_000, elements = 1000;
+        long sink = 0;
+        long[] nanos = new long[2], bytes = new long[2];
+        for (int round = 0; round < 3; ++round){
+            for (int mode = 0; mode < 2; ++mode){
+                long allocatedBefore = Benchmarks.allocatedBytes();
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; ++i){
+                    MyArrayList<Integer> list = mode == 0 ? new MyArrayList<>(elements) : MyArrayList.borrow(elements);
+                    for (int j = 0; j < elements; ++j){
+                        list.add(j & 127);
+                    }
+                    sink += list.get(i % elements);
+                    if (mode == 1){
+                        list.release();
+                    }
+                }
+                nanos[mode] = System.nanoTime() - start;
+                bytes[mode] = Benchmarks.allocatedBytes() - allocatedBefore;
+            }
+        }
+        Assert.assertTrue(sink > 0);
+        System.out.printf("Pool: %d lists of %d elements, new %.0f ns %.0f bytes per list, borrow %.0f ns %.1f bytes per list%n",
+                iterations, elements, (double) nanos[0] / iterations, (double) bytes[0] / iterations,
+                (double) nanos[1] / iterations, (double) bytes[1] / iterations);
+    }
+
+    @Test
+    @Name("Borrow and release pooled list")
+    public void borrowRelease_success(){
+        MyArrayList<Integer> borrowed = MyArrayList.borrow();
+        for (int i = 0; i < 100; ++i){
+            borrowed.add(i);
+        }
+        borrowed.release();
+        Assert.assertThrows(IllegalStateException.class, borrowed::release);
+
+        MyArrayList<Integer> reused = MyArrayList.borrow();
+        Assert.assertSame(borrowed, reused);
+        Assert.assertTrue(reused.isEmpty());
+        reused.add(5);
+        Assert.assertEquals((Integer) 5, reused.get(0));
+        reused.release();
+    }
+
+    @Test
+    @Name("Benchmark: async map of a blocking function")
+    public void asyncBenchmark() throws Exception {
+        Benchmarks.assumeEnabled();
+        int elements = 2000;
+        for (int i = 0; i < elements; ++i){
+            integerMyArrayList.add(i);
+        }
+        StringBuilder report = new StringBuilder(String.format("Async: %d elements, 1 ms blocking call each%n", elements));
+        report.append(String.format("%-12s %12s %14s%n", "parallelism", "ms", "elements/s"));
+        for (int parallelism : new int[]{1, 16, 64, 256}){
+            long start = System.nanoTime();
+            MyArrayList<Integer> mapped = integerMyArrayList.mapAsync(x -> {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+                return x + 1;
+            }, parallelism).get();
+            long nanos = System.nanoTime() - start;
+            Assert.assertEquals((Integer) elements, mapped.get(elements - 1));
+            report.append(String.format("%-12d %12.1f %14.0f%n", parallelism, nanos / 1e6, elements * 1e9 / nanos));
+        }
+        System.out.print(report);
+    }
+
+    @Test
+    @Name("Async map, forEach and replaceAll")
+    public void async_success(){
+        long expectedSum = 0;
+        for (int i = 0; i < 1000; ++i){
+            integerMyArrayList.add(i);
+            expectedSum += i;
+        }
+        MyArrayList<String> mapped = integerMyArrayList.mapAsync(String::valueOf, 8).join();
+        Assert.assertEquals(1000, mapped.size());
+        for (int i = 0; i < 1000; ++i){
+            Assert.assertEquals(String.valueOf(i), mapped.get(i));
+        }
+
+        AtomicLong sum = new AtomicLong();
+        integerMyArrayList.forEachAsync(sum::addAndGet, 4).join();
+        Assert.assertEquals(expectedSum, sum.get());
+
+        integerMyArrayList.replaceAllAsync(i -> i * 2, 3).join();
+        Assert.assertEquals((Integer) 1998, integerMyArrayList.get(999));
+    }
+
+    @Test
+    @Name("Async error propagation")
+    public void asyncError_success(){
+        for (int i = 0; i < 1000; ++i){
+            integerMyArrayList.add(i);
+        }
+        CompletableFuture<MyArrayList<Integer>> future = integerMyArrayList.mapAsync(i -> {
+            if (i == 500){
+                throw new IllegalStateException("boom");
+            }
+            return i;
+        }, 4);
+        CompletionException e = Assert.assertThrows(CompletionException.class, future::join);
+        Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    @Name("Failed async replaceAll invalidates hash and records change")
+    public void asyncReplaceAllError_success(){
+        for (int i = 0; i < 1000; ++i){
+            integerMyArrayList.add(i);
+        }
+        int hash = integerMyArrayList.hashCode();
+        integerMyArrayList.enableChangeTracking();
+        long checkpoint = integerMyArrayList.checkpoint();
+        ArrayList<Integer> copy = new ArrayList<>(integerMyArrayList);
+
+        CompletableFuture<Void> future = integerMyArrayList.replaceAllAsync(i -> {
+            if (i == 500){
+                throw new IllegalStateException("boom");
+            }
+            return -i;
+        }, 1);
+        Assert.assertThrows(CompletionException.class, future::join);
+        Assert.assertEquals((Integer) (-499), integerMyArrayList.get(499));
+        Assert.assertNotEquals(hash, integerMyArrayList.hashCode());
+        Assert.assertEquals(new ArrayList<>(integerMyArrayList).hashCode(), integerMyArrayList.hashCode());
+
+        for (MyArrayList.Change<Integer> change : integerMyArrayList.changesSince(checkpoint)){
+            change.applyTo(copy);
+        }
+        Assert.assertEquals(copy, integerMyArrayList);
+    }
+
+    @Test
+    @Name("Async cancellation stops processing")
+    public void asyncCancel_success() throws InterruptedException {
+        for (int i = 0; i < 200; ++i){
+            integerMyArrayList.add(i);
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1), cancelled = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<MyArrayList<Integer>> mapped = integerMyArrayList.mapAsync(i -> {
+            calls.incrementAndGet();
+            if (i == 5){
+                started.countDown();
+                awaitQuietly(cancelled);
+            }
+            return i;
+        }, 1, executor);
+        started.await();
+        Assert.assertTrue(mapped.cancel(true));
+        cancelled.countDown();
+
+        CountDownLatch replaceStarted = new CountDownLatch(1), replaceCancelled = new CountDownLatch(1);
+        CompletableFuture<Void> replaced = integerMyArrayList.replaceAllAsync(i -> {
+            if (i == 5){
+                replaceStarted.countDown();
+                awaitQuietly(replaceCancelled);
+            }
+            return -i;
+        }, 1, executor);
+        replaceStarted.await();
+        Assert.assertTrue(replaced.cancel(true));
+        replaceCancelled.countDown();
+
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertEquals(6, calls.get());
+        Assert.assertEquals((Integer) (-5), integerMyArrayList.get(5));
+        Assert.assertEquals((Integer) 6, integerMyArrayList.get(6));
+        Assert.assertEquals((Integer) 199, integerMyArrayList.get(199));
+    }
+
+    @Test
+    @Name("Default executor runs parallelism blocking calls at once")
+    public void asyncDefaultExecutorParallelism_success() throws Exception {
+        int parallelism = 8;
+        for (int i = 0; i < parallelism; ++i){
+            integerMyArrayList.add(i);
+        }
+        CountDownLatch allStarted = new CountDownLatch(parallelism);
+        MyArrayList<Boolean> met = integerMyArrayList.mapAsync(x -> {
+            allStarted.countDown();
+            try {
+                return allStarted.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }, parallelism).get(20, TimeUnit.SECONDS);
+        for (Boolean b : met){
+            Assert.assertTrue(b);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch){
+        try {
+            latch.await();
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @Name("Changes since checkpoint")
+    public void changesSince_success(){
+        for (int i = 0; i < 100; ++i){
+            integerMyArrayList.add(i);
+        }
+        integerMyArrayList.enableChangeTracking();
+        long checkpoint = integerMyArrayList.checkpoint();
+        ArrayList<Integer> copy = new ArrayList<>(integerMyArrayList);
+
+        for (int i = 100; i < 200; ++i){
+            integerMyArrayList.add(i);
+        }
+        integerMyArrayList.set(10, -1);
+        integerMyArrayList.set(11, -2);
+        integerMyArrayList.remove(50);
+        integerMyArrayList.remove(50);
+        integerMyArrayList.add(0, -3);
+        integerMyArrayList.batch().remove(5).add(7, -4).set(150, -5).commit();
+
+        List<MyArrayList.Change<Integer>> changes = integerMyArrayList.changesSince(checkpoint);
+        Assert.assertEquals(MyArrayList.Change.Kind.INSERT, changes.get(0).kind());
+        Assert.assertEquals(100, changes.get(0).count());
+        Assert.assertEquals(2, changes.get(1).count());
+        Assert.assertEquals(2, changes.get(2).count());
+        for (MyArrayList.Change<Integer> change : changes){
+            change.applyTo(copy);
+        }
+        Assert.assertArrayEquals(copy.toArray(), integerMyArrayList.toArray());
+        Assert.assertTrue(integerMyArrayList.changesSince(integerMyArrayList.checkpoint()).isEmpty());
+    }
+
+    @Test
+    @Name("Diff of two lists")
+    public void diff_success(){
+        MyArrayList<Integer> other = new MyArrayList<>();
+        for (int i = 0; i < 100; ++i){
+            integerMyArrayList.add(i);
+            other.add(i);
+        }
+        Assert.assertTrue(integerMyArrayList.diff(other).isEmpty());
+        other.set(40, -1);
+        other.add(60, -2);
+        other.add(60, -3);
+
+        ArrayList<Integer> copy = new ArrayList<>(integerMyArrayList);
+        List<MyArrayList.Change<Integer>> changes = integerMyArrayList.diff(other);
+        Assert.assertEquals(2, changes.size());
+        for (MyArrayList.Change<Integer> change : changes){
+            change.applyTo(copy);
+        }
+        Assert.assertArrayEquals(other.toArray(), copy.toArray());
+    }
+
+    @Test
+    @Name("Benchmark: cached hashes of list keys")
+    public void hashBenchmark(){
+        Benchmarks.assumeEnabled();
+        int keys = 1000, elements = 1000, lookups = 100;
+        Random random = new Random(20261019L);
+        long sink = 0, first = 0, cached = 0;
+        for (int warmup = 0; warmup < 3; ++warmup){
+            List<MyArrayList<Integer>> lists = new ArrayList<>();
+            for (int k = 0; k < keys; ++k){
+                MyArrayList<Integer> list = new MyArrayList<>(elements);
+                for (int i = 0; i < elements; ++i){
+                    list.add(random.nextInt());
+                }
+                lists.add(list);
+            }
+            long start = System.nanoTime();
+            for (MyArrayList<Integer> list : lists){
+                sink += list.hashCode() + list.contentHash();
+            }
+            first = System.nanoTime() - start;
+
+            Map<MyArrayList<Integer>, Integer> map = new HashMap<>();
+            for (int k = 0; k < keys; ++k){
+                map.put(lists.get(k), k);
+            }
+            start = System.nanoTime();
+            for (int round = 0; round < lookups; ++round){
+                for (MyArrayList<Integer> list : lists){
+                    sink += map.get(list) + list.contentHash();
+                }
+            }
+            cached = (System.nanoTime() - start) / lookups;
+        }
+        Assert.assertNotEquals(0, sink);
+        System.out.printf("Hash: %d lists of %d elements, first hashCode and contentHash %.0f ns per list, "
+                        + "cached map lookup and contentHash %.0f ns per list, %.0fx%n",
+                keys, elements, (double) first / keys, (double) cached / keys, (double) first / cached);
+    }
+
+    @Test
+    @Name("Equals and hashCode")
+    public void equalsHashCode_success(){
+        ArrayList<Integer> integerArrayList = new ArrayList<>();
+        MyArrayList<Integer> other = new MyArrayList<>();
+        for (int i = 0; i < 1000; ++i){
+            integerMyArrayList.add(i);
+            integerArrayList.add(i);
+            other.add(i);
+        }
+        Assert.assertEquals(integerArrayList, integerMyArrayList);
+        Assert.assertEquals(integerMyArrayList, integerArrayList);
+        Assert.assertEquals(other, integerMyArrayList);
+        Assert.assertEquals(integerArrayList.hashCode(), integerMyArrayList.hashCode());
+        Assert.assertEquals(other.contentHash(), integerMyArrayList.contentHash());
+
+        HashSet<List<Integer>> set = new HashSet<>();
+        set.add(integerMyArrayList);
+        Assert.assertTrue(set.contains(other));
+
+        int hash = other.hashCode();
+        long contentHash = other.contentHash();
+        other.set(500, -1);
+        Assert.assertNotEquals(hash, other.hashCode());
+        Assert.assertNotEquals(contentHash, other.contentHash());
+        Assert.assertNotEquals(integerMyArrayList, other);
+        integerArrayList.set(500, -1);
+        Assert.assertEquals(integerArrayList.hashCode(), other.hashCode());
+    }
+
+    @Test
+    @Name("Equals does not trust stale cached hashes")
+    public void equalsMutatedElement_success(){
+        List<Integer> element = new ArrayList<>(Arrays.asList(1, 2));
+        MyArrayList<List<Integer>> x = new MyArrayList<>();
+        MyArrayList<List<Integer>> y = new MyArrayList<>();
+        x.add(element);
+        y.add(element);
+        x.hashCode();
+        x.contentHash();
+        element.add(3);
+        y.hashCode();
+        y.contentHash();
+        Assert.assertEquals(x, y);
+        Assert.assertEquals(new ArrayList<>(x), y);
+
+        MyArrayList<String> aa = new MyArrayList<>();
+        MyArrayList<String> bb = new MyArrayList<>();
+        aa.add("Aa");
+        bb.add("BB");
+        Assert.assertEquals(aa.contentHash(), bb.contentHash());
+        Assert.assertNotEquals(aa, bb);
+    }
+
+    @Test
+    @Name("Benchmark: selection against full sort")
+    public void selectionBenchmark(){
+        Benchmarks.assumeEnabled();
+        int size = 1_000_000, k = 100;
+        ArrayList<Integer> shuffled = new ArrayList<>();
+        for (int i = 0; i < size; ++i){
+            shuffled.add(i);
+        }
+        Collections.shuffle(shuffled, new Random(20261019L));
+        Comparator<Integer> comparator = Comparator.naturalOrder();
+        String[] names = {"sort", "nthElement(n/2)", "partialSort(100)", "topK(100)"};
+        long[] nanos = new long[names.length];
+        Arrays.fill(nanos, Long.MAX_VALUE);
+        for (int round = 0; round < 5; ++round){
+            for (int m = 0; m < names.length; ++m){
+                MyArrayList<Integer> list = new MyArrayList<>(size);
+                list.addAll(shuffled);
+                long start = System.nanoTime();
+                switch (m){
+                    case 0:
+                        list.sort(comparator);
+                        Assert.assertEquals((Integer) (size / 2), list.get(size / 2));
+                        break;
+                    case 1:
+                        Assert.assertEquals((Integer) (size / 2), list.nthElement(size / 2, comparator));
+                        break;
+                    case 2:
+                        list.partialSort(k, comparator);
+                        Assert.assertEquals((Integer) (k - 1), list.get(k - 1));
+                        break;
+                    default:
+                        Assert.assertEquals((Integer) (size - 1), list.topK(k, comparator).get(0));
+                }
+                nanos[m] = Math.min(nanos[m], System.nanoTime() - start);
+            }
+        }
+        StringBuilder report = new StringBuilder(String.format("Selection: %d shuffled elements%n", size));
+        for (int m = 0; m < names.length; ++m){
+            report.append(String.format("%-18s %10.1f ms %8.1fx%n", names[m], nanos[m] / 1e6, (double) nanos[0] / nanos[m]));
+        }
+        System.out.print(report);
+    }
+
+    @Test
+    @Name("Selection and partial sort")
+    public void selection_success(){
+        ArrayList<Integer> shuffled = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i){
+            shuffled.add(i);
+        }
+        Collections.shuffle(shuffled, new Random(1));
+        ALComparator<Integer> integerALComparator = new ALComparator<>();
+
+        integerMyArrayList.addAll(shuffled);
+        Assert.assertEquals((Integer) 123, integerMyArrayList.nthElement(123, integerALComparator));
+        for (int i = 0; i < 1000; ++i){
+            Assert.assertEquals(i < 123, integerMyArrayList.get(i) < 123);
+        }
+
+        MyArrayList<Integer> top = integerMyArrayList.topK(5, integerALComparator);
+        Assert.assertArrayEquals(new Integer[]{999, 998, 997, 996, 995}, top.toArray());
+
+        integerMyArrayList.partialSort(10, integerALComparator);
+        for (int i = 0; i < 10; ++i){
+            Assert.assertEquals((Integer) i, integerMyArrayList.get(i));
+        }
+
+        MyArrayList<Integer> percentiles = integerMyArrayList.percentiles(new double[]{0.5, 0, 1, 0.99}, integerALComparator);
+        Assert.assertArrayEquals(new Integer[]{499, 0, 999, 989}, percentiles.toArray());
+        Assert.assertEquals(1000, integerMyArrayList.size());
+        Assert.assertEquals(new HashSet<>(shuffled), new HashSet<>(integerMyArrayList));
+    }
+
+    @Test
+    @Name("Selection with natural ordering and empty input")
+    public void selectionNaturalOrder_success(){
+        for (int i = 0; i < 100; ++i){
+            integerMyArrayList.add((i * 37) % 100);
+        }
+        Assert.assertEquals((Integer) 42, integerMyArrayList.nthElement(42, null));
+        Assert.assertArrayEquals(new Integer[]{99, 98, 97}, integerMyArrayList.topK(3, null).toArray());
+        integerMyArrayList.partialSort(3, null);
+        Assert.assertArrayEquals(new Integer[]{0, 1, 2}, integerMyArrayList.subList(0, 3).toArray());
+        Assert.assertArrayEquals(new Integer[]{49, 99}, integerMyArrayList.percentiles(new double[]{0.5, 1}, null).toArray());
+
+        MyArrayList<Integer> empty = new MyArrayList<>();
+        Assert.assertTrue(empty.percentiles(new double[0], null).isEmpty());
+        Assert.assertThrows(NoSuchElementException.class, () -> empty.percentiles(new double[]{0.5}, null));
+    }
 }